@@ -0,0 +1,88 @@
+package wolfshotz.dml;
+
+import net.minecraftforge.common.ForgeConfigSpec;
+import org.apache.commons.lang3.tuple.Pair;
+
+public class DMLConfig
+{
+    public static final ForgeConfigSpec COMMON_SPEC;
+    public static final Common COMMON;
+    public static final ForgeConfigSpec CLIENT_SPEC;
+    public static final Client CLIENT;
+
+    static
+    {
+        Pair<Common, ForgeConfigSpec> common = new ForgeConfigSpec.Builder().configure(Common::new);
+        COMMON = common.getLeft();
+        COMMON_SPEC = common.getRight();
+
+        Pair<Client, ForgeConfigSpec> client = new ForgeConfigSpec.Builder().configure(Client::new);
+        CLIENT = client.getLeft();
+        CLIENT_SPEC = client.getRight();
+    }
+
+    public static class Common
+    {
+        public final ForgeConfigSpec.DoubleValue flightHysteresis;
+        public final ForgeConfigSpec.IntValue frostBudget;
+
+        Common(ForgeConfigSpec.Builder builder)
+        {
+            builder.push("dragons");
+
+            flightHysteresis = builder.comment("How far (in blocks) below the flying altitude threshold a flying dragon has to sink before it lands.",
+                    "Keeps dragons hovering right at the threshold from flipping between flying and walking every few ticks.")
+                    .defineInRange("flight_hysteresis", 0.5d, 0d, 1d);
+
+            frostBudget = builder.comment("How many water columns all ice dragons in a world may check for freezing, per tick.",
+                    "Dragons that run out continue on the next tick.")
+                    .defineInRange("frost_budget", 4096, 0, 65536);
+
+            builder.pop();
+        }
+    }
+
+    public static class Client
+    {
+        public final ForgeConfigSpec.IntValue eggParticleBudget;
+        public final ForgeConfigSpec.DoubleValue eggParticleRange;
+        public final ForgeConfigSpec.DoubleValue eggParticleFullRateRange;
+        public final ForgeConfigSpec.BooleanValue eggParticleCulling;
+        public final ForgeConfigSpec.IntValue animationLodNear;
+        public final ForgeConfigSpec.IntValue animationLodFar;
+        public final ForgeConfigSpec.BooleanValue fastTrig;
+
+        Client(ForgeConfigSpec.Builder builder)
+        {
+            builder.push("eggs");
+
+            eggParticleBudget = builder.comment("How many particles all incubating dragon eggs together may spawn per tick.")
+                    .defineInRange("egg_particle_budget", 200, 0, 10000);
+
+            eggParticleRange = builder.comment("Eggs further away than this (in blocks) don't spawn any particles.")
+                    .defineInRange("egg_particle_range", 48d, 0d, 256d);
+
+            eggParticleFullRateRange = builder.comment("Eggs closer than this (in blocks) spawn a particle every tick.",
+                    "Further away, the rate halves every time the distance doubles.")
+                    .defineInRange("egg_particle_full_rate_range", 12d, 1d, 256d);
+
+            eggParticleCulling = builder.comment("Whether eggs outside of the view spawn particles.")
+                    .define("egg_particle_culling", true);
+
+            builder.pop();
+            builder.push("dragons");
+
+            animationLodNear = builder.comment("Dragons shorter than this on screen (in pixels) are animated with fewer neck and tail segments.")
+                    .defineInRange("animation_lod_near", 160, 0, 4096);
+
+            animationLodFar = builder.comment("Dragons shorter than this on screen (in pixels) get a simplified pose without animation cycles.")
+                    .defineInRange("animation_lod_far", 48, 0, 4096);
+
+            fastTrig = builder.comment("Whether dragon animations use table and polynomial approximations of sin, cos and atan2.",
+                    "Slightly less accurate, but faster. Needs a game restart.")
+                    .define("fast_trig", false);
+
+            builder.pop();
+        }
+    }
+}
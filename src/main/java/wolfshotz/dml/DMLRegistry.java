@@ -18,7 +18,7 @@ import wolfshotz.dml.misc.LazySpawnEggItem;
 
 import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.function.ToIntFunction;
+import java.util.function.ToIntBiFunction;
 
 public class DMLRegistry
 {
@@ -56,7 +56,7 @@ public class DMLRegistry
         return ENTITIES.register(name, () -> builder.build(DragonMountsLegacy.MOD_ID + ":" + name));
     }
 
-    private static <T extends TameableDragonEntity> RegistryObject<EntityType<T>> dragonEntity(String name, EntityType.IFactory<T> factory, ToIntFunction<DragonEggEntity> habitatFunc, int primColor, int secColor, Consumer<EntityType.Builder<T>> builderConsumer)
+    private static <T extends TameableDragonEntity> RegistryObject<EntityType<T>> dragonEntity(String name, EntityType.IFactory<T> factory, ToIntBiFunction<DragonEggEntity, HabitatScan> habitatFunc, int primColor, int secColor, Consumer<EntityType.Builder<T>> builderConsumer)
     {
         EntityType.Builder<T> builder = EntityType.Builder.create(factory, EntityClassification.CREATURE);
         builder.setShouldReceiveVelocityUpdates(true)
@@ -71,7 +71,7 @@ public class DMLRegistry
         return delegate;
     }
 
-    private static <T extends TameableDragonEntity> RegistryObject<EntityType<T>> dragonEntity(String name, EntityType.IFactory<T> factory, ToIntFunction<DragonEggEntity> habitatFunc, int primColor, int secColor)
+    private static <T extends TameableDragonEntity> RegistryObject<EntityType<T>> dragonEntity(String name, EntityType.IFactory<T> factory, ToIntBiFunction<DragonEggEntity, HabitatScan> habitatFunc, int primColor, int secColor)
     {
         return dragonEntity(name, factory, habitatFunc, primColor, secColor, t ->
         {});
@@ -13,7 +13,9 @@ import net.minecraftforge.event.LootTableLoadEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.fml.DeferredWorkQueue;
 import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
@@ -25,10 +27,19 @@ import org.apache.logging.log4j.Logger;
 import wolfshotz.dml.client.BreathKeybind;
 import wolfshotz.dml.client.ClientEvents;
 import wolfshotz.dml.cmd.DragonSetAgeCommand;
+import wolfshotz.dml.cmd.DragonStatsCommand;
 import wolfshotz.dml.data.DataHandler;
 import wolfshotz.dml.entities.AetherDragonEntity;
+import wolfshotz.dml.entities.HabitatBiomes;
+import wolfshotz.dml.entities.IncubationManager;
 import wolfshotz.dml.entities.TameableDragonEntity;
+import wolfshotz.dml.entities.ai.FlightPathPlanner;
+import wolfshotz.dml.entities.ai.RiderInput;
 import wolfshotz.dml.misc.DragonEggBlock;
+import wolfshotz.dml.util.AltitudeCache;
+import wolfshotz.dml.util.BlockChangeTracker;
+import wolfshotz.dml.util.LandingSiteIndex;
+import wolfshotz.dml.util.LightCache;
 
 import java.util.Optional;
 
@@ -46,10 +57,21 @@ public class DragonMountsLegacy
         bus.addListener(this::setup);
         bus.addListener(DataHandler::gather);
         DistExecutor.safeRunWhenOn(Dist.CLIENT, () -> ClientEvents::init);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, DMLConfig.COMMON_SPEC);
+        ModLoadingContext.get().registerConfig(ModConfig.Type.CLIENT, DMLConfig.CLIENT_SPEC);
 
         MinecraftForge.EVENT_BUS.addListener(this::startingServer);
         MinecraftForge.EVENT_BUS.addListener(this::injectLootTables);
         MinecraftForge.EVENT_BUS.addListener(DragonEggBlock::onVanillaEggActivate);
+        MinecraftForge.EVENT_BUS.addListener(BlockChangeTracker::onNeighborNotify);
+        MinecraftForge.EVENT_BUS.addListener(BlockChangeTracker::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(AltitudeCache::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(LandingSiteIndex::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(LightCache::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(HabitatBiomes::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(FlightPathPlanner::onChunkUnload);
+        MinecraftForge.EVENT_BUS.addListener(IncubationManager::onWorldTick);
+        MinecraftForge.EVENT_BUS.addListener(IncubationManager::onWorldUnload);
 
         DMLRegistry.BLOCKS.register(bus);
         DMLRegistry.ITEMS.register(bus);
@@ -65,7 +87,8 @@ public class DragonMountsLegacy
     public void startingServer(FMLServerStartingEvent evt)
     {
         evt.getServer().getCommandManager().getDispatcher().register(LiteralArgumentBuilder.<CommandSource>literal("dragonmounts")
-                        .then(DragonSetAgeCommand.register()));
+                        .then(DragonSetAgeCommand.register())
+                        .then(DragonStatsCommand.register()));
     }
 
     public void injectLootTables(LootTableLoadEvent evt)
@@ -98,7 +121,7 @@ public class DragonMountsLegacy
 
     private static SimpleChannel buildChannel()
     {
-        final String PROTOCOL_VER = "1.0";
+        final String PROTOCOL_VER = "1.2";
         SimpleChannel channel = NetworkRegistry.ChannelBuilder
                 .named(rl("network"))
                 .clientAcceptedVersions(PROTOCOL_VER::equals)
@@ -107,6 +130,7 @@ public class DragonMountsLegacy
                 .simpleChannel();
 
         channel.registerMessage(1, BreathKeybind.Packet.class, BreathKeybind.Packet::encode, BreathKeybind.Packet::new, BreathKeybind.Packet::handle, Optional.of(NetworkDirection.PLAY_TO_SERVER));
+        channel.registerMessage(2, RiderInput.Packet.class, RiderInput.Packet::encode, RiderInput.Packet::new, RiderInput.Packet::handle, Optional.of(NetworkDirection.PLAY_TO_SERVER));
         return channel;
     }
 }
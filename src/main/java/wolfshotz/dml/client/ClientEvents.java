@@ -1,31 +1,53 @@
 package wolfshotz.dml.client;
 
+import net.minecraft.client.Minecraft;
 import net.minecraft.entity.EntityType;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraftforge.client.event.ColorHandlerEvent;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.fml.RegistryObject;
 import net.minecraftforge.fml.client.registry.RenderingRegistry;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
+import wolfshotz.dml.DMLConfig;
 import wolfshotz.dml.DMLRegistry;
+import wolfshotz.dml.DragonMountsLegacy;
+import wolfshotz.dml.client.anim.AnimationLod;
+import wolfshotz.dml.client.anim.AnimationStore;
 import wolfshotz.dml.client.render.DragonRenderer;
 import wolfshotz.dml.client.render.EggRenderer;
 import wolfshotz.dml.entities.TameableDragonEntity;
+import wolfshotz.dml.entities.ai.RiderInput;
 import wolfshotz.dml.misc.LazySpawnEggItem;
+import wolfshotz.dml.util.MathX;
 
 public class ClientEvents
 {
+    private static RiderInput lastRiderInput;
+    private static int riderInputSequence;
+    private static int clientTicks;
+
     public static void init()
     {
         IEventBus bus = FMLJavaModLoadingContext.get().getModEventBus();
 
         bus.addListener(ClientEvents::setup);
         bus.addListener(ClientEvents::itemColors);
+
+        MinecraftForge.EVENT_BUS.addListener(ClientEvents::sendRiderInput);
+        MinecraftForge.EVENT_BUS.addListener(EggParticles::tick);
+        MinecraftForge.EVENT_BUS.addListener(EggParticles::debugOverlay);
+        MinecraftForge.EVENT_BUS.addListener(AnimationStore::onClientTick);
+        MinecraftForge.EVENT_BUS.addListener(AnimationLod::onRenderTick);
+        MinecraftForge.EVENT_BUS.addListener(AnimationLod::debugOverlay);
     }
 
     public static void setup(FMLClientSetupEvent evt)
     {
         ClientEvents.registerRenders();
+        MathX.setFastTrig(DMLConfig.CLIENT.fastTrig.get());
 //        ClientRegistry.registerKeyBinding(new BreathKeybind());
     }
 
@@ -58,6 +80,29 @@ public class ClientEvents
 //        }
 //    }
 
+    /**
+     * Sends our flight controls when flying our dragon. Input is sampled once at the end of the tick,
+     * so any changes during the tick end up in a single message, and nothing is sent while it stays the same.
+     */
+    public static void sendRiderInput(TickEvent.ClientTickEvent evt)
+    {
+        if (evt.phase != TickEvent.Phase.END) return;
+        ++clientTicks;
+
+        PlayerEntity player = Minecraft.getInstance().player;
+        if (player == null || !RiderInput.isControlling(player))
+        {
+            lastRiderInput = null;
+            return;
+        }
+
+        RiderInput input = RiderInput.sample(player);
+        if (input.equals(lastRiderInput)) return;
+
+        lastRiderInput = input;
+        DragonMountsLegacy.NETWORK.sendToServer(new RiderInput.Packet(++riderInputSequence, clientTicks, input));
+    }
+
     public static void itemColors(ColorHandlerEvent.Item evt)
     {
         DMLRegistry.ITEMS.getEntries()
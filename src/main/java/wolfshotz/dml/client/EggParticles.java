@@ -0,0 +1,88 @@
+package wolfshotz.dml.client;
+
+import net.minecraft.client.MainWindow;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.util.math.vector.Vector3f;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.event.TickEvent;
+import wolfshotz.dml.DMLConfig;
+import wolfshotz.dml.entities.DragonEggEntity;
+
+/**
+ * Decides which incubating eggs get to spawn their particle this tick.
+ * <p>
+ * Eggs close to the camera spawn one every tick, further away the rate halves every time the distance doubles, and
+ * beyond the configured range they spawn none. Eggs behind the camera are skipped, and all eggs together share a
+ * budget per tick. The numbers of the last tick are shown on the debug screen.
+ */
+public class EggParticles
+{
+    private static final double CONE_MARGIN = Math.toRadians(10); // particles drift, and the fov changes when sprinting
+
+    private static int budget;
+    private static double viewCone;
+    private static int emitted, suppressed;
+    private static int lastEmitted, lastSuppressed;
+
+    public static void tick(TickEvent.ClientTickEvent evt)
+    {
+        if (evt.phase != TickEvent.Phase.START) return;
+
+        lastEmitted = emitted;
+        lastSuppressed = suppressed;
+        emitted = suppressed = 0;
+        budget = DMLConfig.CLIENT.eggParticleBudget.get();
+
+        // half angle of a cone around the corners of the screen
+        Minecraft mc = Minecraft.getInstance();
+        MainWindow window = mc.getMainWindow();
+        double aspect = (double) window.getFramebufferWidth() / Math.max(1, window.getFramebufferHeight());
+        double angle = Math.atan(Math.tan(Math.toRadians(mc.gameSettings.fov) / 2) * Math.sqrt(1 + aspect * aspect)) + CONE_MARGIN;
+        viewCone = Math.cos(Math.min(angle, Math.PI));
+    }
+
+    public static boolean shouldEmit(DragonEggEntity egg)
+    {
+        ActiveRenderInfo camera = Minecraft.getInstance().gameRenderer.getActiveRenderInfo();
+        if (!camera.isValid()) return suppress();
+
+        Vector3d eye = camera.getProjectedView();
+        double dx = egg.getPosX() - eye.x;
+        double dy = egg.getPosY() - eye.y;
+        double dz = egg.getPosZ() - eye.z;
+        double distSq = dx * dx + dy * dy + dz * dz;
+
+        double range = DMLConfig.CLIENT.eggParticleRange.get();
+        if (distSq > range * range) return suppress();
+
+        int interval = 1;
+        for (double full = DMLConfig.CLIENT.eggParticleFullRateRange.get(); full * full < distSq; full *= 2) interval <<= 1;
+        if ((egg.ticksExisted + egg.getEntityId()) % interval != 0) return suppress();
+
+        if (DMLConfig.CLIENT.eggParticleCulling.get() && distSq > 4)
+        {
+            Vector3f look = camera.getViewVector();
+            double dot = dx * look.getX() + dy * look.getY() + dz * look.getZ();
+            if (dot < viewCone * Math.sqrt(distSq)) return suppress();
+        }
+
+        if (budget <= 0) return suppress();
+        --budget;
+        ++emitted;
+        return true;
+    }
+
+    private static boolean suppress()
+    {
+        ++suppressed;
+        return false;
+    }
+
+    public static void debugOverlay(RenderGameOverlayEvent.Text evt)
+    {
+        if (Minecraft.getInstance().gameSettings.showDebugInfo)
+            evt.getLeft().add(String.format("Egg particles: %d emitted, %d suppressed", lastEmitted, lastSuppressed));
+    }
+}
@@ -0,0 +1,75 @@
+package wolfshotz.dml.client.anim;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.event.TickEvent;
+import wolfshotz.dml.DMLConfig;
+import wolfshotz.dml.entities.TameableDragonEntity;
+
+import java.util.Arrays;
+
+/**
+ * How much detail a dragon is animated and rendered with, picked from how tall it appears on screen.
+ * <ul>
+ *     <li>NEAR: the full rig.</li>
+ *     <li>MID: every other neck and tail segment, stretched to close the gaps.</li>
+ *     <li>FAR: every fourth segment, and a pose that only follows the animation timers (ground, sit, flutter...),
+ *     without the wing beat, breathing and walk cycles.</li>
+ * </ul>
+ */
+public enum AnimationLod
+{
+    NEAR(1),
+    MID(2),
+    FAR(4);
+
+    private static final AnimationLod[] VALUES = values();
+    private static final int[] counts = new int[VALUES.length];
+    private static final int[] lastCounts = new int[VALUES.length];
+
+    public final int segmentStep;
+
+    AnimationLod(int segmentStep) { this.segmentStep = segmentStep; }
+
+    public static AnimationLod select(TameableDragonEntity dragon, float partialTicks)
+    {
+        AnimationLod lod = NEAR;
+        double pixels = getScreenHeight(dragon, partialTicks);
+        if (pixels < DMLConfig.CLIENT.animationLodFar.get()) lod = FAR;
+        else if (pixels < DMLConfig.CLIENT.animationLodNear.get()) lod = MID;
+
+        ++counts[lod.ordinal()];
+        return lod;
+    }
+
+    /**
+     * Roughly how many pixels tall the dragon is on screen.
+     */
+    private static double getScreenHeight(TameableDragonEntity dragon, float partialTicks)
+    {
+        Minecraft mc = Minecraft.getInstance();
+        ActiveRenderInfo camera = mc.gameRenderer.getActiveRenderInfo();
+        Vector3d eye = camera.getProjectedView();
+        double dist = eye.distanceTo(dragon.getEyePosition(partialTicks));
+        if (dist < 1) return Double.MAX_VALUE;
+
+        double view = 2 * dist * Math.tan(Math.toRadians(mc.gameSettings.fov) / 2);
+        return dragon.getHeight() / view * mc.getMainWindow().getFramebufferHeight();
+    }
+
+    public static void onRenderTick(TickEvent.RenderTickEvent evt)
+    {
+        if (evt.phase != TickEvent.Phase.START) return;
+
+        System.arraycopy(counts, 0, lastCounts, 0, counts.length);
+        Arrays.fill(counts, 0);
+    }
+
+    public static void debugOverlay(RenderGameOverlayEvent.Text evt)
+    {
+        if (Minecraft.getInstance().gameSettings.showDebugInfo)
+            evt.getLeft().add(String.format("Dragon LOD: %d near, %d mid, %d far", lastCounts[0], lastCounts[1], lastCounts[2]));
+    }
+}
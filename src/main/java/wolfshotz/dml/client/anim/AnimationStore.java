@@ -0,0 +1,160 @@
+package wolfshotz.dml.client.anim;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.IWorld;
+import net.minecraftforge.event.TickEvent;
+import wolfshotz.dml.util.MathX;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Animation timers and trails of all dragons in a client world, kept in flat arrays instead of a handful of small
+ * objects per dragon.
+ * <p>
+ * Each {@link DragonAnimator} owns a slot, and its values live at fixed offsets of that slot. Slots are kept packed:
+ * removing one moves the last one into its place. All animators of a world are ticked in one sweep over the slots,
+ * at the end of the client tick.
+ */
+public class AnimationStore
+{
+    // timers, smoothed between their previous and current tick value
+    public static final int ANIM = 0;
+    public static final int GROUND = 1;
+    public static final int FLUTTER = 2;
+    public static final int WALK = 3;
+    public static final int SIT = 4;
+    public static final int JAW = 5;
+    public static final int SPEED = 6;
+    private static final int TIMERS = 7;
+    private static final float[] TIMER_INITIAL = {0, 1, 0, 0, 0, 0, 1};
+    private static final boolean[] TIMER_CLAMPED = {false, true, true, true, true, true, true}; // to 0..1
+
+    // trails, ring buffers of past values. sizes have to be powers of 2
+    public static final int Y_TRAIL = 0;
+    public static final int YAW_TRAIL = 1;
+    public static final int PITCH_TRAIL = 2;
+    private static final int TRAILS = 3;
+    private static final int[] TRAIL_SIZE = {8, 16, 16};
+    private static final int[] TRAIL_OFFSET = {0, 8, 24};
+    private static final int TRAIL_STRIDE = 40;
+
+    private static final Map<IWorld, AnimationStore> WORLDS = new MapMaker().weakKeys().makeMap();
+
+    private DragonAnimator[] animators = new DragonAnimator[16];
+    private float[] timers = new float[16 * TIMERS * 2]; // current, previous
+    private float[] trails = new float[16 * TRAIL_STRIDE];
+    private int[] trailIndices = new int[16 * TRAILS];
+    private int size;
+
+    public static AnimationStore get(IWorld world) { return WORLDS.computeIfAbsent(world, w -> new AnimationStore()); }
+
+    public void add(DragonAnimator animator)
+    {
+        if (size == animators.length)
+        {
+            int capacity = size * 2;
+            animators = Arrays.copyOf(animators, capacity);
+            timers = Arrays.copyOf(timers, capacity * TIMERS * 2);
+            trails = Arrays.copyOf(trails, capacity * TRAIL_STRIDE);
+            trailIndices = Arrays.copyOf(trailIndices, capacity * TRAILS);
+        }
+
+        int slot = size++;
+        animators[slot] = animator;
+        animator.slot = slot;
+        for (int t = 0; t < TIMERS; t++)
+            timers[(slot * TIMERS + t) * 2] = timers[(slot * TIMERS + t) * 2 + 1] = TIMER_INITIAL[t];
+        Arrays.fill(trails, slot * TRAIL_STRIDE, (slot + 1) * TRAIL_STRIDE, 0);
+        Arrays.fill(trailIndices, slot * TRAILS, (slot + 1) * TRAILS, 0);
+    }
+
+    public void remove(DragonAnimator animator)
+    {
+        int slot = animator.slot;
+        if (slot < 0 || animators[slot] != animator) return;
+
+        int last = --size;
+        if (slot != last)
+        {
+            DragonAnimator moved = animators[last];
+            animators[slot] = moved;
+            moved.slot = slot;
+            System.arraycopy(timers, last * TIMERS * 2, timers, slot * TIMERS * 2, TIMERS * 2);
+            System.arraycopy(trails, last * TRAIL_STRIDE, trails, slot * TRAIL_STRIDE, TRAIL_STRIDE);
+            System.arraycopy(trailIndices, last * TRAILS, trailIndices, slot * TRAILS, TRAILS);
+        }
+        animators[last] = null;
+        animator.slot = -1;
+    }
+
+    public int size() { return size; }
+
+    public void tick()
+    {
+        for (int i = 0; i < size; i++) animators[i].tick();
+    }
+
+    public static void onClientTick(TickEvent.ClientTickEvent evt)
+    {
+        Minecraft mc = Minecraft.getInstance();
+        if (evt.phase != TickEvent.Phase.END || mc.world == null || mc.isGamePaused()) return;
+
+        AnimationStore store = WORLDS.get(mc.world);
+        if (store != null) store.tick();
+    }
+
+    // ---- timers ----
+
+    public float getTimer(int slot, int timer, float partialTicks)
+    {
+        int i = (slot * TIMERS + timer) * 2;
+        return MathX.terpLinear(timers[i + 1], timers[i], partialTicks);
+    }
+
+    public float getTimer(int slot, int timer) { return timers[(slot * TIMERS + timer) * 2]; }
+
+    public void syncTimer(int slot, int timer)
+    {
+        int i = (slot * TIMERS + timer) * 2;
+        timers[i + 1] = timers[i];
+    }
+
+    public void setTimer(int slot, int timer, float value)
+    {
+        int i = (slot * TIMERS + timer) * 2;
+        timers[i + 1] = timers[i];
+        timers[i] = TIMER_CLAMPED[timer]? MathX.clamp(value, 0, 1) : value;
+    }
+
+    public void addTimer(int slot, int timer, float value) { setTimer(slot, timer, getTimer(slot, timer) + value); }
+
+    // ---- trails ----
+
+    public void fillTrail(int slot, int trail, float value)
+    {
+        int start = slot * TRAIL_STRIDE + TRAIL_OFFSET[trail];
+        Arrays.fill(trails, start, start + TRAIL_SIZE[trail], value);
+    }
+
+    public void updateTrail(int slot, int trail, float value)
+    {
+        int i = slot * TRAILS + trail;
+        int index = trailIndices[i] = (trailIndices[i] + 1) & (TRAIL_SIZE[trail] - 1);
+        trails[slot * TRAIL_STRIDE + TRAIL_OFFSET[trail] + index] = value;
+    }
+
+    public float getTrail(int slot, int trail, float x, int offset)
+    {
+        int start = slot * TRAIL_STRIDE + TRAIL_OFFSET[trail];
+        int mask = TRAIL_SIZE[trail] - 1;
+        int i = trailIndices[slot * TRAILS + trail] - offset;
+        return MathX.terpLinear(trails[start + (i - 1 & mask)], trails[start + (i & mask)], x);
+    }
+
+    public float getTrail(int slot, int trail, float x, int offset1, int offset2)
+    {
+        return getTrail(slot, trail, x, offset2) - getTrail(slot, trail, x, offset1);
+    }
+}
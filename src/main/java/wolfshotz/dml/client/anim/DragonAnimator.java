@@ -7,9 +7,16 @@ import wolfshotz.dml.client.model.ModelPart;
 import wolfshotz.dml.entities.TameableDragonEntity;
 import wolfshotz.dml.util.MathX;
 
+/**
+ * Animates a dragon model. Timers and trails are kept in the world's {@link AnimationStore}, which ticks all animators
+ * at once. Keyframe tables are shared, and so are the arrays used while animating, since that only happens on the
+ * render thread.
+ */
 public class DragonAnimator
 {
     public TameableDragonEntity dragon;
+    private AnimationStore store;
+    int slot = -1; // in the store, assigned by it
 
     // entity parameters
     private float partialTicks;
@@ -29,42 +36,31 @@ public class DragonAnimator
     private float sit;
     private float jaw;
     private float speed;
-    // timing interp vars
-    private final TickFloat animTimer = new TickFloat();
-    private final TickFloat groundTimer = new TickFloat(1).setLimit(0, 1);
-    private final TickFloat flutterTimer = new TickFloat().setLimit(0, 1);
-    private final TickFloat walkTimer = new TickFloat().setLimit(0, 1);
-    private final TickFloat sitTimer = new TickFloat().setLimit(0, 1);
-    private final TickFloat jawTimer = new TickFloat().setLimit(0, 1);
-    private final TickFloat speedTimer = new TickFloat(1).setLimit(0, 1);
     // trails
     private boolean initTrails = true;
-    private final CircularBuffer yTrail = new CircularBuffer(8);
-    private final CircularBuffer yawTrail = new CircularBuffer(16);
-    private final CircularBuffer pitchTrail = new CircularBuffer(16);
     // model flags
     private boolean onGround;
     private boolean openJaw;
     private boolean wingsDown;
     // animation parameters
-    private final float[] wingArm = new float[3];
-    private final float[] wingForearm = new float[3];
-    private final float[] wingArmFlutter = new float[3];
-    private final float[] wingForearmFlutter = new float[3];
-    private final float[] wingArmGlide = new float[3];
-    private final float[] wingForearmGlide = new float[3];
-    private final float[] wingArmGround = new float[3];
-    private final float[] wingForearmGround = new float[3];
+    private static final float[] wingArm = new float[3];
+    private static final float[] wingForearm = new float[3];
+    private static final float[] wingArmFlutter = new float[3];
+    private static final float[] wingForearmFlutter = new float[3];
+    private static final float[] wingArmGlide = new float[3];
+    private static final float[] wingForearmGlide = new float[3];
+    private static final float[] wingArmGround = new float[3];
+    private static final float[] wingForearmGround = new float[3];
     // final X rotation angles for ground
-    private final float[] xGround = {0, 0, 0, 0};
+    private static final float[] xGround = {0, 0, 0, 0};
     // X rotation angles for ground
     // 1st dim - front, hind
     // 2nd dim - thigh, crus, foot, toe
-    private final float[][] xGroundStand = {
+    private static final float[][] xGroundStand = {
             {0.8f, -1.5f, 1.3f, 0},
             {-0.3f, 1.5f, -0.2f, 0},
     };
-    private final float[][] xGroundSit = {
+    private static final float[][] xGroundSit = {
             {0.3f, -1.8f, 1.8f, 0},
             {-0.8f, 1.8f, -0.9f, 0},
     };
@@ -72,7 +68,7 @@ public class DragonAnimator
     // 1st dim - animation keyframe
     // 2nd dim - front, hind
     // 3rd dim - thigh, crus, foot, toe
-    private final float[][][] xGroundWalk = {{
+    private static final float[][][] xGroundWalk = {{
             {0.4f, -1.4f, 1.3f, 0},    // move down and forward
             {0.1f, 1.2f, -0.5f, 0}     // move back
     }, {
@@ -83,25 +79,42 @@ public class DragonAnimator
             {-0.7f, 1.4f, -0.2f, 0}    // move down and forward
     }};
     // final X rotation angles for walking
-    private final float[] xGroundWalk2 = {0, 0, 0, 0};
+    private static final float[] xGroundWalk2 = {0, 0, 0, 0};
     // Y rotation angles for ground, thigh only
-    private final float[] yGroundStand = {-0.25f, 0.25f};
-    private final float[] yGroundSit = {0.1f, 0.35f};
-    private final float[] yGroundWalk = {-0.1f, 0.1f};
-    // final X rotation angles for air
-    private float[] xAir;
+    private static final float[] yGroundStand = {-0.25f, 0.25f};
+    private static final float[] yGroundSit = {0.1f, 0.35f};
+    private static final float[] yGroundWalk = {-0.1f, 0.1f};
     // X rotation angles for air
     // 1st dim - front, hind
     // 2nd dim - thigh, crus, foot, toe
-    private final float[][] xAirAll = {{0, 0, 0, 0}, {0, 0, 0, 0}};
+    private static final float[][] xAirAll = {{0, 0, 0, 0}, {0, 0, 0, 0}};
     // Y rotation angles for air, thigh only
-    private final float[] yAirAll = {-0.1f, 0.1f};
+    private static final float[] yAirAll = {-0.1f, 0.1f};
+    // Y rotation angles of the wing fingers, folded and unfolded
+    private static final float[] yFold = {2.7f, 2.8f, 2.9f, 3.0f};
+    private static final float[] yUnfold = {0.1f, 0.9f, 1.7f, 2.5f};
 
     public DragonAnimator(TameableDragonEntity dragon)
     {
         this.dragon = dragon;
     }
 
+    /**
+     * Takes a slot in the store of the dragon's world. Called when the dragon is added to the world.
+     */
+    public void attach()
+    {
+        store = AnimationStore.get(dragon.world);
+        store.add(this);
+        initTrails = true;
+    }
+
+    public void detach()
+    {
+        if (store != null) store.remove(this);
+        store = null;
+    }
+
     public void setPartialTicks(float partialTicks)
     {
         this.partialTicks = partialTicks;
@@ -126,13 +139,15 @@ public class DragonAnimator
      */
     public void animate(DragonModel model)
     {
-        anim = animTimer.get(partialTicks);
-        ground = groundTimer.get(partialTicks);
-        flutter = flutterTimer.get(partialTicks);
-        walk = walkTimer.get(partialTicks);
-        sit = sitTimer.get(partialTicks);
-        jaw = jawTimer.get(partialTicks);
-        speed = speedTimer.get(partialTicks);
+        if (store == null) return;
+
+        anim = store.getTimer(slot, AnimationStore.ANIM, partialTicks);
+        ground = store.getTimer(slot, AnimationStore.GROUND, partialTicks);
+        flutter = store.getTimer(slot, AnimationStore.FLUTTER, partialTicks);
+        walk = store.getTimer(slot, AnimationStore.WALK, partialTicks);
+        sit = store.getTimer(slot, AnimationStore.SIT, partialTicks);
+        jaw = store.getTimer(slot, AnimationStore.JAW, partialTicks);
+        speed = store.getTimer(slot, AnimationStore.SPEED, partialTicks);
 
         animBase = anim * MathX.PI_F * 2;
 //        if (dragon.isInWater()) animBase *= 0.4;
@@ -143,6 +158,16 @@ public class DragonAnimator
         if (newWingsDown && !wingsDown && flutter != 0) dragon.onWingsDown(speed);
         wingsDown = newWingsDown;
 
+        // far away dragons only take the pose of their timers, without any of the cycles.
+        // the wing beat above still follows the real timer, so they can still be heard flapping
+        if (model.lod == AnimationLod.FAR)
+        {
+            anim = 0;
+            walk = 0;
+            animBase = 0;
+            cycleOfs = MathX.sin(-1) + 1;
+        }
+
         // update flags
         model.back.showModel = !dragon.isSaddled();
 
@@ -168,7 +193,7 @@ public class DragonAnimator
     }
 
     /**
-     * Updates the animation state. Called on every tick.
+     * Updates the animation state. Called on every tick by the store.
      */
     public void tick()
     {
@@ -177,21 +202,21 @@ public class DragonAnimator
         // init trails
         if (initTrails)
         {
-            yTrail.fill((float) dragon.getPosY());
-            yawTrail.fill(dragon.renderYawOffset);
-            pitchTrail.fill(getModelPitch());
+            store.fillTrail(slot, AnimationStore.Y_TRAIL, (float) dragon.getPosY());
+            store.fillTrail(slot, AnimationStore.YAW_TRAIL, dragon.renderYawOffset);
+            store.fillTrail(slot, AnimationStore.PITCH_TRAIL, getModelPitch());
             initTrails = false;
         }
 
         // don't move anything during death sequence
         if (dragon.getHealth() <= 0)
         {
-            animTimer.sync();
-            groundTimer.sync();
-            flutterTimer.sync();
-            walkTimer.sync();
-            sitTimer.sync();
-            jawTimer.sync();
+            store.syncTimer(slot, AnimationStore.ANIM);
+            store.syncTimer(slot, AnimationStore.GROUND);
+            store.syncTimer(slot, AnimationStore.FLUTTER);
+            store.syncTimer(slot, AnimationStore.WALK);
+            store.syncTimer(slot, AnimationStore.SIT);
+            store.syncTimer(slot, AnimationStore.JAW);
             return;
         }
 
@@ -208,10 +233,10 @@ public class DragonAnimator
             animAdd += (1 - speedMulti) * animAdd;
         }
 
-        animTimer.add(animAdd);
+        store.addTimer(slot, AnimationStore.ANIM, animAdd);
 
         // update ground transition
-        float groundVal = groundTimer.get();
+        float groundVal = store.getTimer(slot, AnimationStore.GROUND);
         if (onGround)
         {
             groundVal *= 0.95f;
@@ -221,28 +246,28 @@ public class DragonAnimator
         {
             groundVal -= 0.1f;
         }
-        groundTimer.set(groundVal);
+        store.setTimer(slot, AnimationStore.GROUND, groundVal);
 
         // update flutter transition
         boolean flutterFlag = !onGround && (dragon.collidedVertically || dragon.getMotion().y > -0.1 || speedEnt < speedMax);
-        flutterTimer.add(flutterFlag ? 0.1f : -0.1f);
+        store.addTimer(slot, AnimationStore.FLUTTER, flutterFlag ? 0.1f : -0.1f);
 
         // update walking transition
         boolean walkFlag = moveSpeed > 0.1 && !dragon.func_233684_eK_();
         float walkVal = 0.1f;
-        walkTimer.add(walkFlag? walkVal : -walkVal);
+        store.addTimer(slot, AnimationStore.WALK, walkFlag? walkVal : -walkVal);
 
         // update sitting transisiton
-        float sitVal = sitTimer.get();
+        float sitVal = store.getTimer(slot, AnimationStore.SIT);
         sitVal += dragon.func_233684_eK_()? 0.1f : -0.1f;
         sitVal *= 0.95f;
-        sitTimer.set(sitVal);
+        store.setTimer(slot, AnimationStore.SIT, sitVal);
 
         // update speed transition
         boolean nearGround = dragon.getAltitude() < dragon.getHeight() * 2;
         boolean speedFlag = speedEnt > speedMax || onGround || nearGround;
         float speedValue = 0.05f;
-        speedTimer.add(speedFlag ? speedValue : -speedValue);
+        store.addTimer(slot, AnimationStore.SPEED, speedFlag ? speedValue : -speedValue);
 
         // update trailers
         double yawDiff = dragon.renderYawOffset - prevRenderYawOffset;
@@ -256,9 +281,9 @@ public class DragonAnimator
 
         // TODO: where's yOffset?
         //yTrail.update(entity.posY - entity.yOffset);
-        yTrail.update((float) dragon.getPosY());
-        yawTrail.update((float) yawAbs);
-        pitchTrail.update(getModelPitch());
+        store.updateTrail(slot, AnimationStore.Y_TRAIL, (float) dragon.getPosY());
+        store.updateTrail(slot, AnimationStore.YAW_TRAIL, (float) yawAbs);
+        store.updateTrail(slot, AnimationStore.PITCH_TRAIL, getModelPitch());
     }
 
     protected void animHeadAndNeck(DragonModel model)
@@ -273,9 +298,13 @@ public class DragonAnimator
 
         float health = (float) dragon.getHealthRelative();
         float neckSize;
+        int step = model.lod.segmentStep;
 
-        for (int i = 0; i < model.neckProxy.length; i++)
+        for (int i = 0; i < model.neckProxy.length; i += step)
         {
+            // segments left out for lower detail are covered by stretching this one
+            int span = Math.min(step, model.neckProxy.length - i);
+
             float vertMulti = (i + 1) / (float) model.neckProxy.length;
 
             float baseRotX = MathX.cos((float) i * 0.45f + animBase) * 0.15f;
@@ -296,7 +325,7 @@ public class DragonAnimator
 
             // update scale
             model.neck.renderScaleX = model.neck.renderScaleY = MathX.terpLinear(1.6f, 1, vertMulti);
-            model.neck.renderScaleZ = 0.6f;
+            model.neck.renderScaleZ = 0.6f * span;
 
             // hide the first and every second scale
             model.neckScale.showModel = i % 2 == 0;
@@ -305,7 +334,7 @@ public class DragonAnimator
             model.neckProxy[i].update();
 
             // move next proxy behind the current one
-            neckSize = DragonModel.NECK_SIZE * model.neck.renderScaleZ - 1.4f;
+            neckSize = (DragonModel.NECK_SIZE * 0.6f - 1.4f) * span;
             model.neck.rotationPointX -= MathX.sin(model.neck.rotateAngleY) * MathX.cos(model.neck.rotateAngleX) * neckSize;
             model.neck.rotationPointY += MathX.sin(model.neck.rotateAngleX) * neckSize;
             model.neck.rotationPointZ -= MathX.cos(model.neck.rotateAngleY) * MathX.cos(model.neck.rotateAngleX) * neckSize;
@@ -396,10 +425,6 @@ public class DragonAnimator
         model.leftWingForearm.rotateAngleY = -wingForearm[1];
         model.leftWingForearm.rotateAngleZ = -wingForearm[2];
 
-        // interpolate between folded and unfolded wing angles
-        float[] yFold = new float[]{2.7f, 2.8f, 2.9f, 3.0f};
-        float[] yUnfold = new float[]{0.1f, 0.9f, 1.7f, 2.5f};
-
         // set wing finger angles
         float rotX = 0;
         float rotYOfs = MathX.sin(a1) * MathX.sin(a2) * 0.03f;
@@ -433,8 +458,12 @@ public class DragonAnimator
         float rotXAir = 0;
         float rotYAir = 0;
 
-        for (int i = 0; i < model.tailProxy.length; i++)
+        int step = model.lod.segmentStep;
+
+        for (int i = 0; i < model.tailProxy.length; i += step)
         {
+            // segments left out for lower detail are covered by stretching this one
+            int span = Math.min(step, model.tailProxy.length - i);
             float vertMulti = (i + 1) / (float) model.tailProxy.length;
 
             // idle
@@ -444,11 +473,15 @@ public class DragonAnimator
             rotXStand += (MathX.sin(animBase * 0.2f) * MathX.sin(animBase * 0.37f) * 0.4f * amp - 0.1f) * (1 - sit);
             rotXSit = rotXStand * 0.8f;
 
-            rotYStand = (rotYStand + MathX.sin(i * 0.45f + animBase * 0.5f)) * amp * 0.4f;
+            // these build up along the tail, so they have to go over the segments left out as well
+            for (int j = Math.max(0, i - step + 1); j <= i; j++)
+            {
+                float ampJ = 0.1f + j / (model.tailProxy.length * 2f);
+                rotYStand = (rotYStand + MathX.sin(j * 0.45f + animBase * 0.5f)) * ampJ * 0.4f;
+                rotXAir -= MathX.sin(j * 0.45f + animBase) * 0.04f * MathX.terpLinear(0.3f, 1, flutter);
+            }
             rotYSit = MathX.sin(vertMulti * MathX.PI_F) * MathX.PI_F * 1.2f - 0.5f; // curl to the left
 
-            rotXAir -= MathX.sin(i * 0.45f + animBase) * 0.04f * MathX.terpLinear(0.3f, 1, flutter);
-
             // interpolate between sitting and standing
             model.tail.rotateAngleX = MathX.terpLinear(rotXStand, rotXSit, sit);
             model.tail.rotateAngleY = MathX.terpLinear(rotYStand, rotYSit, sit);
@@ -459,8 +492,8 @@ public class DragonAnimator
 
             // body movement
             float angleLimit = 160 * vertMulti;
-            float yawOfs = MathX.clamp(yawTrail.get(partialTicks, 0, i + 1) * 2, -angleLimit, angleLimit);
-            float pitchOfs = MathX.clamp(pitchTrail.get(partialTicks, 0, i + 1) * 2, -angleLimit, angleLimit);
+            float yawOfs = MathX.clamp(store.getTrail(slot, AnimationStore.YAW_TRAIL, partialTicks, 0, i + 1) * 2, -angleLimit, angleLimit);
+            float pitchOfs = MathX.clamp(store.getTrail(slot, AnimationStore.PITCH_TRAIL, partialTicks, 0, i + 1) * 2, -angleLimit, angleLimit);
 
             model.tail.rotateAngleX += MathX.toRadians(pitchOfs);
             model.tail.rotateAngleX -= (1 - speed) * vertMulti * 2;
@@ -476,12 +509,13 @@ public class DragonAnimator
             // update scale
             float neckScale = MathX.terpLinear(1.5f, 0.3f, vertMulti);
             model.tail.setRenderScale(neckScale);
+            model.tail.renderScaleZ *= span;
 
             // update proxy
             model.tailProxy[i].update();
 
             // move next proxy behind the current one
-            float tailSize = DragonModel.TAIL_SIZE * model.tail.renderScaleZ - 0.7f;
+            float tailSize = (DragonModel.TAIL_SIZE * neckScale - 0.7f) * span;
             model.tail.rotationPointY += MathX.sin(model.tail.rotateAngleX) * tailSize;
             model.tail.rotationPointZ -= MathX.cos(model.tail.rotateAngleY) * MathX.cos(model.tail.rotateAngleX) * tailSize;
             model.tail.rotationPointX -= MathX.sin(model.tail.rotateAngleY) * MathX.cos(model.tail.rotateAngleX) * tailSize;
@@ -534,7 +568,7 @@ public class DragonAnimator
                 thigh.rotationPointZ = 46;
             }
 
-            xAir = xAirAll[i % 2];
+            float[] xAir = xAirAll[i % 2];
 
             // interpolate between sitting and standing
             slerpArrays(xGroundStand[i % 2], xGroundSit[i % 2], xGround, sit);
@@ -633,7 +667,8 @@ public class DragonAnimator
     public float getModelPitch(float pt)
     {
         float pitchMovingMax = 90;
-        float pitchMoving = MathX.clamp(yTrail.get(pt, 5, 0) * 10, -pitchMovingMax, pitchMovingMax);
+        // no trail yet when rendered before being added to the world (or after leaving it)
+        float pitchMoving = store == null? 0 : MathX.clamp(store.getTrail(slot, AnimationStore.Y_TRAIL, pt, 5, 0) * 10, -pitchMovingMax, pitchMovingMax);
         float pitchHover = 60;
         return MathX.terpSmoothStep(pitchHover, pitchMoving, speed);
     }
@@ -4,12 +4,16 @@ import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.entity.model.EntityModel;
+import net.minecraft.client.renderer.model.ModelRenderer;
 import net.minecraft.entity.EntityType;
 import net.minecraft.util.math.vector.Vector3f;
 import wolfshotz.dml.DMLRegistry;
+import wolfshotz.dml.client.anim.AnimationLod;
 import wolfshotz.dml.entities.TameableDragonEntity;
 import wolfshotz.dml.util.MathX;
 
+import java.util.Arrays;
+
 public class DragonModel extends EntityModel<TameableDragonEntity>
 {
     // model constants
@@ -56,6 +60,11 @@ public class DragonModel extends EntityModel<TameableDragonEntity>
     public float offsetZ;
     public float pitch;
     public float size;
+    public AnimationLod lod = AnimationLod.NEAR;
+    // parts with cubes and their final matrices, from the last pose
+    private ModelRenderer[] posedParts = new ModelRenderer[64];
+    private MatrixStack[] poses = new MatrixStack[64];
+    private int poseCount;
     // delegates
     private final EntityType<? extends TameableDragonEntity> type;
 
@@ -74,6 +83,9 @@ public class DragonModel extends EntityModel<TameableDragonEntity>
         buildTail();
         buildWings();
         buildLegs();
+
+        // keep all proxy transforms next to each other, in render order
+        ModelPartProxy.flatten(neckProxy, tailProxy, thighProxy);
     }
 
     private void buildHead()
@@ -390,44 +402,98 @@ public class DragonModel extends EntityModel<TameableDragonEntity>
     @Override
     public void render(MatrixStack ms, IVertexBuilder buffer, int packedLight, int packedOverlay, float r, float g, float b, float a)
     {
+        pose(ms);
+        renderPosed(buffer, packedLight, packedOverlay, r, g, b, a);
+    }
+
+    /**
+     * Walks the model and keeps the final matrix of every part with cubes, so the model can then be rendered any
+     * number of times ({@link #renderPosed}) without going through the hierarchy again.
+     */
+    public void pose(MatrixStack ms)
+    {
+        poseCount = 0;
+
         ms.push();
         ms.translate(offsetX, offsetY, offsetZ);
         ms.rotate(Vector3f.XP.rotationDegrees(-pitch));
 
-        renderHead(ms, buffer, packedLight, packedOverlay, r, g, b, a);
-        for (ModelPartProxy proxy : neckProxy) proxy.render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
-        body.render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
-        for (ModelPartProxy proxy : tailProxy) proxy.render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
-        renderWings(ms, buffer, packedLight, packedOverlay, r, g, b, a);
-        renderLegs(ms, buffer, packedLight, packedOverlay, r, g, b, a);
+        poseHead(ms);
+        for (int i = 0; i < neckProxy.length; i += lod.segmentStep) neckProxy[i].pose(ms, this);
+        pose(body, ms);
+        for (int i = 0; i < tailProxy.length; i += lod.segmentStep) tailProxy[i].pose(ms, this);
+        poseWings(ms);
+        poseLegs(ms);
 
         ms.pop();
     }
 
-    protected void renderHead(MatrixStack ms, IVertexBuilder buffer, int packedLight, int packedOverlay, float r, float g, float b, float a)
+    /**
+     * Renders the parts as they were last {@link #pose posed}.
+     */
+    public void renderPosed(IVertexBuilder buffer, int packedLight, int packedOverlay, float r, float g, float b, float a)
+    {
+        for (int i = 0; i < poseCount; i++)
+            posedParts[i].doRender(poses[i].getLast(), buffer, packedLight, packedOverlay, r, g, b, a);
+    }
+
+    protected void poseHead(MatrixStack ms)
     {
         float headScale = 1.4f / (size + 0.4f);
 
         head.setRenderScale(headScale);
-        head.render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
+        pose(head, ms);
     }
 
-    protected void renderWings(MatrixStack ms, IVertexBuilder buffer, int packedLight, int packedOverlay, float r, float g, float b, float a)
+    protected void poseWings(MatrixStack ms)
     {
-        rightWingArm.render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
-        leftWingArm.render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
+        pose(rightWingArm, ms);
+        pose(leftWingArm, ms);
     }
 
-    protected void renderLegs(MatrixStack ms, IVertexBuilder buffer, int packedLight, int packedOverlay, float r, float g, float b, float a)
+    protected void poseLegs(MatrixStack ms)
     {
         ms.push();
         for (int i = 0; i < thighProxy.length; i++)
         {
-            thighProxy[i].render(ms, buffer, packedLight, packedOverlay, r, g, b, a);
+            thighProxy[i].pose(ms, this);
 
             // mirror next legs
             if (i == 1) ms.translate(1.38, 0, 0); //todo temp solution?
         }
         ms.pop();
     }
+
+    // same as ModelRenderer#render, recording instead of rendering
+    private void pose(ModelRenderer part, MatrixStack ms)
+    {
+        if (!part.showModel) return;
+
+        ms.push();
+        part.translateRotate(ms);
+        addPose(part, ms.getLast());
+        for (ModelRenderer child : part.childModels) pose(child, ms);
+        ms.pop();
+    }
+
+    void addPose(ModelRenderer part, MatrixStack.Entry entry)
+    {
+        if (part.cubeList.isEmpty()) return;
+
+        if (poseCount == poses.length)
+        {
+            posedParts = Arrays.copyOf(posedParts, poseCount * 2);
+            poses = Arrays.copyOf(poses, poseCount * 2);
+        }
+
+        // the stacks are reused, only their top entry is ever set
+        MatrixStack pose = poses[poseCount];
+        if (pose == null) poses[poseCount] = pose = new MatrixStack();
+        MatrixStack.Entry last = pose.getLast();
+        last.getMatrix().setIdentity();
+        last.getMatrix().mul(entry.getMatrix());
+        last.getNormal().setIdentity();
+        last.getNormal().mul(entry.getNormal());
+        posedParts[poseCount++] = part;
+    }
 }
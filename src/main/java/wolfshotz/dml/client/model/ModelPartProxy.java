@@ -1,7 +1,8 @@
 package wolfshotz.dml.client.model;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
-import com.mojang.blaze3d.vertex.IVertexBuilder;
+import net.minecraft.client.renderer.model.ModelRenderer;
+import net.minecraft.util.math.vector.Vector3f;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -9,33 +10,31 @@ import java.util.List;
 /**
  * Proxy for a model part that is used to project one model renderer on multiple
  * visible instances.
+ * <p>
+ * The transforms of the part and all of its children are saved in pre-order into a slice of one float array shared
+ * by all proxies of a model (see {@link #flatten}), and rendering reads them straight from there. The model parts
+ * themselves are never written back to.
  *
  * @author Nico Bergemann <barracuda415 at yahoo.de>
  */
 public class ModelPartProxy
 {
-
-    // projected parts and part childs
+    // transform layout of each part
+    private static final int SCALE = 0; // x, y, z
+    private static final int POINT = 3;
+    private static final int PRE_ROTATE = 6;
+    private static final int ROTATE = 9;
+    private static final int SHOW = 12;
+    private static final int STRIDE = 13;
+
+    // projected part, with its children in pre-order
     public final ModelPart part;
-    private final List<ModelPartProxy> childs;
-    // scale multiplier
-    private float renderScaleX = 1;
-    private float renderScaleY = 1;
-    private float renderScaleZ = 1;
-    // rotation points
-    private float rotationPointX;
-    private float rotationPointY;
-    private float rotationPointZ;
-    // rotation angles
-    private float preRotateAngleX;
-    private float preRotateAngleY;
-    private float preRotateAngleZ;
-    private float rotateAngleX;
-    private float rotateAngleY;
-    private float rotateAngleZ;
-    // misc meta data
-    private boolean hidden;
-    private boolean showModel;
+    private final ModelPart[] parts;
+    // index after the subtree of each part
+    private final int[] ends;
+    // shared transforms of the model
+    private float[] transforms;
+    private int offset;
 
     /**
      * Constructs a new proxy for the given model part.
@@ -46,75 +45,114 @@ public class ModelPartProxy
     {
         this.part = part;
 
-        if (part.childModels != null)
-        {
-            childs = new ArrayList<>();
-            for (Object childModel : part.childModels) childs.add(new ModelPartProxy((ModelPart) childModel));
-        }
-        else childs = null;
+        List<ModelPart> list = new ArrayList<>();
+        List<Integer> endList = new ArrayList<>();
+        collect(part, list, endList);
+        this.parts = list.toArray(new ModelPart[0]);
+        this.ends = endList.stream().mapToInt(Integer::intValue).toArray();
+        this.transforms = new float[parts.length * STRIDE];
 
         update();
     }
 
+    private static void collect(ModelPart part, List<ModelPart> parts, List<Integer> ends)
+    {
+        int index = parts.size();
+        parts.add(part);
+        ends.add(0);
+        if (part.childModels != null)
+            for (ModelRenderer child : part.childModels) collect((ModelPart) child, parts, ends);
+        ends.set(index, parts.size());
+    }
+
     /**
-     * Saves the properties of the model part to this proxy with the default
-     * rendering scale.
+     * Moves the transforms of all the given proxies into one array, in order.
      */
-    public final void update()
+    public static float[] flatten(ModelPartProxy[]... proxies)
     {
-        renderScaleX = part.renderScaleX;
-        renderScaleY = part.renderScaleY;
-        renderScaleZ = part.renderScaleZ;
+        int size = 0;
+        for (ModelPartProxy[] group : proxies)
+            for (ModelPartProxy proxy : group) size += proxy.transforms.length;
+
+        float[] transforms = new float[size];
+        int offset = 0;
+        for (ModelPartProxy[] group : proxies)
+            for (ModelPartProxy proxy : group)
+            {
+                System.arraycopy(proxy.transforms, proxy.offset, transforms, offset, proxy.parts.length * STRIDE);
+                proxy.transforms = transforms;
+                proxy.offset = offset;
+                offset += proxy.parts.length * STRIDE;
+            }
+        return transforms;
+    }
 
-        rotationPointX = part.rotationPointX;
-        rotationPointY = part.rotationPointY;
-        rotationPointZ = part.rotationPointZ;
+    /**
+     * Saves the properties of the model part and its children to this proxy.
+     */
+    public final void update()
+    {
+        for (int i = 0, o = offset; i < parts.length; i++, o += STRIDE)
+        {
+            ModelPart p = parts[i];
+            transforms[o + SCALE] = p.renderScaleX;
+            transforms[o + SCALE + 1] = p.renderScaleY;
+            transforms[o + SCALE + 2] = p.renderScaleZ;
 
-        preRotateAngleX = part.preRotateAngleX;
-        preRotateAngleY = part.preRotateAngleY;
-        preRotateAngleZ = part.preRotateAngleZ;
+            transforms[o + POINT] = p.rotationPointX;
+            transforms[o + POINT + 1] = p.rotationPointY;
+            transforms[o + POINT + 2] = p.rotationPointZ;
 
-        rotateAngleX = part.rotateAngleX;
-        rotateAngleY = part.rotateAngleY;
-        rotateAngleZ = part.rotateAngleZ;
+            transforms[o + PRE_ROTATE] = p.preRotateAngleX;
+            transforms[o + PRE_ROTATE + 1] = p.preRotateAngleY;
+            transforms[o + PRE_ROTATE + 2] = p.preRotateAngleZ;
 
-        hidden = !part.showModel;
-        showModel = part.showModel;
+            transforms[o + ROTATE] = p.rotateAngleX;
+            transforms[o + ROTATE + 1] = p.rotateAngleY;
+            transforms[o + ROTATE + 2] = p.rotateAngleZ;
 
-        if (childs != null) for (ModelPartProxy child : childs) child.update();
+            transforms[o + SHOW] = p.showModel? 1 : 0;
+        }
     }
 
     /**
-     * Restores the properties from this proxy to the model part.
+     * Adds the poses of the part and its visible children to the model, to be rendered by
+     * {@link DragonModel#renderPosed}.
      */
-    public final void apply()
+    public void pose(MatrixStack ms, DragonModel model)
     {
-        part.renderScaleX = renderScaleX;
-        part.renderScaleY = renderScaleY;
-        part.renderScaleZ = renderScaleZ;
+        pose(0, ms, model);
+    }
 
-        part.rotationPointX = rotationPointX;
-        part.rotationPointY = rotationPointY;
-        part.rotationPointZ = rotationPointZ;
+    // same as ModelRenderer#render, but with the saved transforms, and recording instead of rendering
+    private void pose(int i, MatrixStack ms, DragonModel model)
+    {
+        int o = offset + i * STRIDE;
+        if (transforms[o + SHOW] == 0) return;
+
+        ms.push();
+        translateRotate(ms, o);
+        model.addPose(parts[i], ms.getLast());
+        for (int child = i + 1; child < ends[i]; child = ends[child]) pose(child, ms, model);
+        ms.pop();
+    }
 
-        part.preRotateAngleX = preRotateAngleX;
-        part.preRotateAngleY = preRotateAngleY;
-        part.preRotateAngleZ = preRotateAngleZ;
+    // same as ModelPart#translateRotate
+    private void translateRotate(MatrixStack ms, int o)
+    {
+        float[] t = transforms;
 
-        part.rotateAngleX = rotateAngleX;
-        part.rotateAngleY = rotateAngleY;
-        part.rotateAngleZ = rotateAngleZ;
+        ms.translate(t[o + POINT] / 16f, t[o + POINT + 1] / 16f, t[o + POINT + 2] / 16f);
 
-        part.showModel = hidden;
-        part.showModel = showModel;
+        if (t[o + PRE_ROTATE + 2] != 0) ms.rotate(Vector3f.ZP.rotation(t[o + PRE_ROTATE + 2]));
+        if (t[o + PRE_ROTATE + 1] != 0) ms.rotate(Vector3f.YP.rotation(t[o + PRE_ROTATE + 1]));
+        if (t[o + PRE_ROTATE] != 0) ms.rotate(Vector3f.XP.rotation(t[o + PRE_ROTATE]));
 
-        if (childs != null)
-            for (ModelPartProxy child : childs) child.apply();
-    }
+        if (t[o + ROTATE + 2] != 0) ms.rotate(Vector3f.ZP.rotation(t[o + ROTATE + 2]));
+        if (t[o + ROTATE + 1] != 0) ms.rotate(Vector3f.YP.rotation(t[o + ROTATE + 1]));
+        if (t[o + ROTATE] != 0) ms.rotate(Vector3f.XP.rotation(t[o + ROTATE]));
 
-    public void render(MatrixStack matrixStack, IVertexBuilder bufferIn, int packedLightIn, int packedOverlayIn, float red, float green, float blue, float alpha)
-    {
-        apply();
-        part.render(matrixStack, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
+        if (t[o + SCALE] != 0 || t[o + SCALE + 1] != 0 || t[o + SCALE + 2] != 0)
+            ms.scale(t[o + SCALE], t[o + SCALE + 1], t[o + SCALE + 2]);
     }
-}
\ No newline at end of file
+}
@@ -21,6 +21,7 @@ import net.minecraft.world.LightType;
 import net.minecraftforge.client.event.RenderLivingEvent;
 import net.minecraftforge.common.MinecraftForge;
 import wolfshotz.dml.DragonMountsLegacy;
+import wolfshotz.dml.client.anim.AnimationLod;
 import wolfshotz.dml.client.model.DragonModel;
 import wolfshotz.dml.entities.TameableDragonEntity;
 
@@ -74,8 +75,10 @@ public class DragonRenderer extends MobRenderer<TameableDragonEntity, DragonMode
         ms.translate(0, -1.501f, 0);
 
         // finish up; render model and layers
+        entityModel.lod = AnimationLod.select(dragon, partialTicks);
         entityModel.setLivingAnimations(dragon, limbSwing, limbSwingAmount, partialTicks);
         entityModel.setRotationAngles(dragon, limbSwing, limbSwingAmount, rotation, yawDiff, lerpPitch);
+        entityModel.pose(ms); // once for the model and all layers
         renderModel(dragon, ms, buffer, light, getPackedOverlay(dragon, getOverlayProgress(dragon, partialTicks)), getRenderType(dragon, getEntityTexture(dragon)));
         if (!dragon.isSpectator())
             for (LayerRenderer<TameableDragonEntity, DragonModel> layer : layerRenderers)
@@ -99,16 +102,16 @@ public class DragonRenderer extends MobRenderer<TameableDragonEntity, DragonMode
         if (deathTime > 0)
         {
             IVertexBuilder dissolve = buffer.getBuffer(RenderType.func_239264_a_(DISSOLVE_TEXTURE, deathTime));
-            entityModel.render(ms, dissolve, packedLight, OverlayTexture.getPackedUV(0, true), 1f, 1f, 1f, 1f);
+            entityModel.renderPosed(dissolve, packedLight, OverlayTexture.getPackedUV(0, true), 1f, 1f, 1f, 1f);
             IVertexBuilder decal = buffer.getBuffer(RenderType.getEntityDecal(getEntityTexture(dragon)));
-            entityModel.render(ms, decal, packedLight, OverlayTexture.getPackedUV(0, true), 1f, 1f, 1f, 1f);
+            entityModel.renderPosed(decal, packedLight, OverlayTexture.getPackedUV(0, true), 1f, 1f, 1f, 1f);
 
             return;
         }
 
         boolean visibleToPlayer = !isVisible(dragon) && !dragon.isInvisibleToPlayer(Minecraft.getInstance().player);
         IVertexBuilder builder = buffer.getBuffer(renderType);
-        entityModel.render(ms, builder, packedLight, overlay, 1f, 1f, 1f, visibleToPlayer? 0.15f : 1f);
+        entityModel.renderPosed(builder, packedLight, overlay, 1f, 1f, 1f, visibleToPlayer? 0.15f : 1f);
     }
 
     @Override
@@ -1,26 +1,42 @@
 package wolfshotz.dml.client.render;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+import net.minecraft.block.Block;
 import net.minecraft.block.BlockRenderType;
 import net.minecraft.block.BlockState;
 import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.BlockRendererDispatcher;
 import net.minecraft.client.renderer.IRenderTypeBuffer;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.RenderTypeLookup;
 import net.minecraft.client.renderer.entity.EntityRenderer;
 import net.minecraft.client.renderer.entity.EntityRendererManager;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.model.IBakedModel;
 import net.minecraft.client.renderer.texture.OverlayTexture;
+import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.client.ForgeHooksClient;
+import net.minecraftforge.client.model.data.EmptyModelData;
 import wolfshotz.dml.entities.DragonEggEntity;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
+/**
+ * Renders eggs with the model of their egg block.
+ * The quads of the model are collected once per breed and render layer, and then drawn for every egg with its own
+ * transform and light, instead of tessellating the block model for each egg every frame.
+ * Shading still comes from the egg's world, so eggs look the same as their block in every dimension.
+ */
 public class EggRenderer extends EntityRenderer<DragonEggEntity>
 {
-    private static final Random RNG = new Random();
+    private final Map<Block, Mesh> meshes = new IdentityHashMap<>();
+    // shade of each face in the egg's world, see Mesh#getShadeIndex
+    private final float[] shades = new float[Mesh.SIDES.length * 2];
 
     public EggRenderer(EntityRendererManager renderManager)
     {
@@ -30,32 +46,98 @@ public class EggRenderer extends EntityRenderer<DragonEggEntity>
     @Override
     public void render(DragonEggEntity entity, float entityYaw, float partialTicks, MatrixStack ms, IRenderTypeBuffer buffer, int packedLightIn)
     {
-        // prepare egg rendering
-        BlockPos blockpos = entity.getPosition();
         BlockState state = entity.egg.getDefaultState();
+        if (state.getRenderType() != BlockRenderType.MODEL) return;
 
-        if (state.getRenderType() == BlockRenderType.MODEL)
+        Mesh mesh = getMesh(state);
+        // the same shading the block gets in the world. Depends on the dimension, so looked up per egg
+        for (Direction side : Mesh.SIDES)
         {
-            if (state != entity.world.getBlockState(entity.getPosition()) && state.getRenderType() != BlockRenderType.INVISIBLE)
+            shades[Mesh.getShadeIndex(side, false)] = entity.world.func_230487_a_(side, false);
+            shades[Mesh.getShadeIndex(side, true)] = entity.world.func_230487_a_(side, true);
+        }
+
+        ms.push();
+        ms.translate(-0.5D, 0.0D, -0.5D);
+        MatrixStack.Entry entry = ms.getLast();
+        for (int i = 0; i < mesh.layers.length; i++)
+        {
+            IVertexBuilder vertices = buffer.getBuffer(mesh.layers[i]);
+            BakedQuad[] quads = mesh.quads[i];
+            byte[] shadeIndices = mesh.shadeIndices[i];
+            for (int j = 0; j < quads.length; j++)
             {
-                ms.push();
-                ms.translate(-0.5D, 0.0D, -0.5D);
-                BlockRendererDispatcher dispatcher = Minecraft.getInstance().getBlockRendererDispatcher();
-                for (RenderType type : RenderType.getBlockRenderTypes())
-                {
-                    if (RenderTypeLookup.canRenderInLayer(state, type))
-                    {
-                        ForgeHooksClient.setRenderLayer(type);
-                        dispatcher.getBlockModelRenderer().renderModel(entity.world, dispatcher.getModelForState(state), state, blockpos, ms, buffer.getBuffer(type), false, RNG, state.getPositionRandom(entity.getPosition()), OverlayTexture.NO_OVERLAY);
-                    }
-                }
-                ForgeHooksClient.setRenderLayer(null);
-                ms.pop();
-                super.render(entity, entityYaw, partialTicks, ms, buffer, packedLightIn);
+                float shade = shades[shadeIndices[j]];
+                vertices.addQuad(entry, quads[j], shade, shade, shade, packedLightIn, OverlayTexture.NO_OVERLAY);
             }
         }
+        ms.pop();
+        super.render(entity, entityYaw, partialTicks, ms, buffer, packedLightIn);
+    }
+
+    private Mesh getMesh(BlockState state)
+    {
+        // models are rebaked on resource reloads, so rebuild when the model changes
+        IBakedModel model = Minecraft.getInstance().getBlockRendererDispatcher().getModelForState(state);
+        Mesh mesh = meshes.get(state.getBlock());
+        if (mesh == null || mesh.model != model) meshes.put(state.getBlock(), mesh = new Mesh(state, model));
+        return mesh;
     }
 
     @Override
     public ResourceLocation getEntityTexture(DragonEggEntity entity) { return null; }
+
+    private static class Mesh
+    {
+        private static final Direction[] SIDES = Direction.values();
+
+        private final IBakedModel model;
+        private final RenderType[] layers;
+        private final BakedQuad[][] quads;
+        private final byte[][] shadeIndices;
+
+        private Mesh(BlockState state, IBakedModel model)
+        {
+            List<RenderType> layers = new ArrayList<>();
+            List<BakedQuad[]> quads = new ArrayList<>();
+            Random rand = new Random();
+
+            for (RenderType type : RenderType.getBlockRenderTypes())
+            {
+                if (!RenderTypeLookup.canRenderInLayer(state, type)) continue;
+
+                ForgeHooksClient.setRenderLayer(type);
+                List<BakedQuad> layer = new ArrayList<>();
+                for (Direction side : SIDES)
+                {
+                    rand.setSeed(42);
+                    layer.addAll(model.getQuads(state, side, rand, EmptyModelData.INSTANCE));
+                }
+                rand.setSeed(42);
+                layer.addAll(model.getQuads(state, null, rand, EmptyModelData.INSTANCE));
+
+                layers.add(type);
+                quads.add(layer.toArray(new BakedQuad[0]));
+            }
+            ForgeHooksClient.setRenderLayer(null);
+
+            this.model = model;
+            this.layers = layers.toArray(new RenderType[0]);
+            this.quads = quads.toArray(new BakedQuad[0][]);
+            this.shadeIndices = new byte[this.quads.length][];
+            for (int i = 0; i < this.quads.length; i++)
+            {
+                BakedQuad[] layer = this.quads[i];
+                shadeIndices[i] = new byte[layer.length];
+                for (int j = 0; j < layer.length; j++)
+                    shadeIndices[i][j] = (byte) getShadeIndex(layer[j].getFace(), layer[j].applyDiffuseLighting());
+            }
+        }
+
+        // quads are shaded by their face, unless they opt out of it (see BlockModelRenderer)
+        private static int getShadeIndex(Direction face, boolean shade)
+        {
+            return face.ordinal() * 2 + (shade? 1 : 0);
+        }
+    }
 }
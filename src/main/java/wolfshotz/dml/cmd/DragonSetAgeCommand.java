@@ -12,10 +12,6 @@ import net.minecraftforge.server.command.EnumArgument;
 import wolfshotz.dml.entities.TameableDragonEntity;
 import wolfshotz.dml.entities.ai.LifeStageController;
 
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
-
 public class DragonSetAgeCommand
 {
     public static final int SEARCH_DIST = 10;
@@ -32,17 +28,15 @@ public class DragonSetAgeCommand
     private static int execute(CommandContext<CommandSource> ctx) throws CommandSyntaxException
     {
         Entity executor = ctx.getSource().getEntity();
-        // Get Dragons nearby
-        List<TameableDragonEntity> nearby = executor.world.getEntitiesWithinAABB(TameableDragonEntity.class, executor.getBoundingBox().grow(SEARCH_DIST));
-        // Get the closest to the executor
-        Optional<TameableDragonEntity> closest = nearby.stream().min(Comparator.comparingDouble(executor::getDistance));
+        // Get the closest dragon to the executor
+        TameableDragonEntity closest = TameableDragonEntity.SPATIAL_INDEX.findNearest(executor.world, executor.getPositionVec(), SEARCH_DIST, d -> true);
         // uhhhh...
-        if (!closest.isPresent()) throw NO_NEARBY_EXCEPTION.create();
+        if (closest == null) throw NO_NEARBY_EXCEPTION.create();
 
         LifeStageController.EnumLifeStage stage = ctx.getArgument("age", LifeStageController.EnumLifeStage.class);
 
-        closest.get().getLifeStageController().setLifeStage(stage);
-        executor.sendMessage(new TranslationTextComponent("commands.dragonmounts.setage.success", closest.get().getName().toString(), stage), executor.getUniqueID());
+        closest.getLifeStageController().setLifeStage(stage);
+        executor.sendMessage(new TranslationTextComponent("commands.dragonmounts.setage.success", closest.getName().toString(), stage), executor.getUniqueID());
 
         return 0;
     }
@@ -0,0 +1,72 @@
+package wolfshotz.dml.cmd;
+
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.util.text.TranslationTextComponent;
+import wolfshotz.dml.entities.TameableDragonEntity;
+import wolfshotz.dml.entities.ai.FrostEngine;
+import wolfshotz.dml.entities.ai.RiderInput;
+import wolfshotz.dml.util.LandingSiteIndex;
+
+public class DragonStatsCommand
+{
+    public static ArgumentBuilder<CommandSource, ?> register()
+    {
+        return Commands.literal("stats")
+                .requires(c -> c.hasPermissionLevel(2))
+                .then(Commands.literal("navigator").executes(DragonStatsCommand::navigator))
+                .then(Commands.literal("landing").executes(DragonStatsCommand::landing))
+                .then(Commands.literal("network").executes(DragonStatsCommand::network))
+                .then(Commands.literal("frost").executes(DragonStatsCommand::frost));
+    }
+
+    private static int navigator(CommandContext<CommandSource> ctx) throws CommandSyntaxException
+    {
+        Entity executor = ctx.getSource().assertIsEntity();
+        TameableDragonEntity dragon = TameableDragonEntity.SPATIAL_INDEX.findNearest(executor.world, executor.getPositionVec(), DragonSetAgeCommand.SEARCH_DIST, d -> true);
+        if (dragon == null) throw DragonSetAgeCommand.NO_NEARBY_EXCEPTION.create();
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.dragonmounts.stats.navigator", dragon.getDisplayName(), dragon.getNavigatorSwaps()), false);
+
+        return dragon.getNavigatorSwaps();
+    }
+
+    private static int landing(CommandContext<CommandSource> ctx)
+    {
+        long hits = LandingSiteIndex.getHits();
+        long misses = LandingSiteIndex.getMisses();
+        int rate = hits + misses == 0? 0 : (int) (hits * 100 / (hits + misses));
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.dragonmounts.stats.landing", hits, misses, rate, LandingSiteIndex.getBuilds()), false);
+
+        return rate;
+    }
+
+    private static int network(CommandContext<CommandSource> ctx)
+    {
+        int riders = 0;
+        for (ServerPlayerEntity player : ctx.getSource().getServer().getPlayerList().getPlayers())
+        {
+            if (!RiderInput.isControlling(player)) continue;
+
+            long rate = ((TameableDragonEntity) player.getRidingEntity()).getRiderInputs().getBytesPerSecond(player.world.getGameTime());
+            ctx.getSource().sendFeedback(new TranslationTextComponent("commands.dragonmounts.stats.network", player.getDisplayName(), rate), false);
+            ++riders;
+        }
+        if (riders == 0) ctx.getSource().sendFeedback(new TranslationTextComponent("commands.dragonmounts.stats.network.none"), false);
+
+        return riders;
+    }
+
+    private static int frost(CommandContext<CommandSource> ctx)
+    {
+        long visited = FrostEngine.getVisited();
+        long frozen = FrostEngine.getFrozen();
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.dragonmounts.stats.frost", visited, frozen, FrostEngine.getSectionUpdates()), false);
+
+        return (int) Math.min(frozen, Integer.MAX_VALUE);
+    }
+}
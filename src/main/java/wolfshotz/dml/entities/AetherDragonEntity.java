@@ -19,7 +19,7 @@ public class AetherDragonEntity extends TameableDragonEntity
         return TameableDragonEntity.getAttributes().createMutableAttribute(Attributes.FLYING_SPEED, AETHER_BASE_SPEED_FLYING);
     }
 
-    public static int getHabitatPoints(DragonEggEntity egg)
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
         if (egg.getPosY() > egg.world.getHeight() * 0.66f) return 3;
         return 0;
@@ -1,31 +1,36 @@
 package wolfshotz.dml.entities;
 
 
+import com.google.common.collect.ImmutableList;
 import net.minecraft.block.Block;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.MoverType;
-import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.network.IPacket;
 import net.minecraft.network.datasync.DataParameter;
 import net.minecraft.network.datasync.DataSerializers;
 import net.minecraft.network.datasync.EntityDataManager;
 import net.minecraft.particles.ParticleTypes;
-import net.minecraft.particles.RedstoneParticleData;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.world.World;
+import net.minecraftforge.fml.RegistryObject;
 import net.minecraftforge.fml.network.NetworkHooks;
 import net.minecraftforge.registries.ForgeRegistries;
 import wolfshotz.dml.DMLRegistry;
 import wolfshotz.dml.DragonMountsLegacy;
+import wolfshotz.dml.client.EggParticles;
 import wolfshotz.dml.client.anim.TickFloat;
 import wolfshotz.dml.entities.ai.LifeStageController;
 import wolfshotz.dml.misc.DragonEggBlock;
+import wolfshotz.dml.util.BlockChangeTracker;
+import wolfshotz.dml.util.EntitySpatialIndex;
 
-import java.util.Comparator;
+import java.util.List;
 
 
 public class DragonEggEntity extends Entity
@@ -33,19 +38,34 @@ public class DragonEggEntity extends Entity
     // constants
     public static final float WIDTH = 0.9f; // Roughly the same size as the dragon egg block box
     public static final float HEIGHT = 0.9f;
-    public static final int CHECK_HABITAT_INTERVAL = 200; // every 10 seconds (give or take, this depends on lag)
+    public static final int CHECK_HABITAT_INTERVAL = 1200; // block changes are picked up right away, this is for biome and light based breeds
     public static final int DEFAULT_HATCH_TIME = 12000;
     public static final float EGG_WIGGLE_THRESHOLD = DEFAULT_HATCH_TIME * 0.25f;
-    public static final String NBT_HATCH_TIME = "HatchTime";
+    public static final String NBT_HATCH_TIME = "HatchTime"; // legacy, ticks left when saved
+    public static final String NBT_HATCH_DEADLINE = "HatchDeadline";
     public static final String NBT_BREED = "Type";
     public static final byte HATCH_ID = 1;
     public static final byte WIGGLE_ID = 2;
+    public static final int SLEEP_DELAY = 5; // ticks an egg has to lie still before it falls asleep
+    public static final int CLIENT_WAKE_INTERVAL = 20;
+    public static final double SLEEP_MOTION_SQ = 1.0E-6;
+
+    // every egg that's currently in a world, for egg to egg collisions
+    public static final EntitySpatialIndex<DragonEggEntity> SPATIAL_INDEX = new EntitySpatialIndex<>();
 
     public static final DataParameter<String> EGG_TYPE = EntityDataManager.createKey(DragonEggEntity.class, DataSerializers.STRING);
+    private static List<DragonEggBlock> EGG_BLOCKS;
+    private final HabitatScan habitat = new HabitatScan(this::onHabitatChanged);
     private final TickFloat wiggleTime = new TickFloat().setLimit(0, 1);
     public DragonEggBlock egg;
     private int hatchTime;
+    private long hatchDeadline = -1; // game time, fixed once the egg is in a world
+    private boolean loaded;
     private boolean wiggling;
+    private boolean sleeping;
+    private int restTicks;
+    private long groundStamp;
+    private int scoredVersion = -1;
 
     public DragonEggEntity(EntityType<? extends Entity> type, World world)
     {
@@ -60,14 +80,15 @@ public class DragonEggEntity extends Entity
     @Override
     protected void writeAdditional(CompoundNBT compound)
     {
-        compound.putInt(NBT_HATCH_TIME, hatchTime);
+        compound.putLong(NBT_HATCH_DEADLINE, getHatchDeadline());
         compound.putString(NBT_BREED, egg.getRegistryName().getPath());
     }
 
     @Override
     protected void readAdditional(CompoundNBT compound)
     {
-        this.hatchTime = compound.getInt(NBT_HATCH_TIME);
+        this.hatchDeadline = IncubationManager.readHatchDeadline(compound, world.getGameTime());
+        this.loaded = true;
         setEggType(ForgeRegistries.BLOCKS.getValue(DragonMountsLegacy.rl(compound.getString(NBT_BREED))));
     }
 
@@ -96,57 +117,143 @@ public class DragonEggEntity extends Entity
 
     @Override
     public void tick()
+    {
+        if (sleeping && shouldWake()) wake();
+        if (!sleeping) tickMovement();
+
+        // habitat checks, wiggling and hatching are done by the IncubationManager on the server
+        if (world.isRemote)
+        {
+            wiggleTime.add(wiggling? 0.1f : -0.1f);
+            if (wiggleTime.get() == 1) wiggling = false;
+
+            if (EggParticles.shouldEmit(this)) spawnParticle();
+        }
+
+        super.tick();
+    }
+
+    private void spawnParticle()
+    {
+        double px = getPosX() + (rand.nextDouble() - 0.5);
+        double py = getPosY() + (rand.nextDouble() - 0.5);
+        double pz = getPosZ() + (rand.nextDouble() - 0.5);
+
+        if (egg == DMLRegistry.ENDER_EGG_BLOCK.get())
+        {
+            double ox = (rand.nextDouble() - 0.5) * 2;
+            double oy = (rand.nextDouble() - 0.5) * 2;
+            double oz = (rand.nextDouble() - 0.5) * 2;
+            world.addParticle(ParticleTypes.PORTAL, px, py, pz, ox, oy, oz);
+        }
+        else world.addParticle(egg.getDustParticle(rand.nextInt(3) != 0), px, py + 1, pz, 0, 0, 0);
+    }
+
+    /**
+     * Falls, moves and collides with other eggs. Eggs that lie still on the ground for a few ticks fall asleep,
+     * which skips all of this until they're pushed or the ground below them changes.
+     */
+    private void tickMovement()
     {
         // update motion - should fall
         if (!hasNoGravity()) setMotion(getMotion().add(0, -0.04d, 0));
 
         move(MoverType.SELF, getMotion());
         setMotion(getMotion().mul(0.3d, 0.98d, 0.3d));
-        world.getEntitiesInAABBexcluding(this, getBoundingBox(), e -> !(e instanceof PlayerEntity)).forEach(this::applyEntityCollision);
+        SPATIAL_INDEX.update(this);
+        if (!world.isRemote && habitat.watch(world, getPosition())) onHabitatChanged(); // moved to another block
 
-        if (!world.isRemote)
+        boolean collided = false;
+        for (DragonEggEntity other : SPATIAL_INDEX.findWithin(world, getPositionVec(), WIDTH * 2, e -> e != this && e.getBoundingBox().intersects(getBoundingBox())))
         {
-            // Update habitat - before hatch to give that one tick chance
-            if (ticksExisted % CHECK_HABITAT_INTERVAL == 0) updateHabitat();
-
-            // hatch!
-            if (--hatchTime <= 0)
-            {
-                hatch();
-                return; // Were hatching! drop the cock and lets go!
-            }
-
-            if (hatchTime < EGG_WIGGLE_THRESHOLD && rand.nextInt(Math.max(10, hatchTime)) == 0) wiggle();
+            applyEntityCollision(other);
+            collided = true;
         }
-        else
+
+        Vector3d motion = getMotion();
+        if (collided || !onGround || motion.x * motion.x + motion.z * motion.z > SLEEP_MOTION_SQ) restTicks = 0;
+        else if (++restTicks >= SLEEP_DELAY)
         {
-            wiggleTime.add(wiggling? 0.1f : -0.1f);
-            if (wiggleTime.get() == 1) wiggling = false;
+            sleeping = true;
+            groundStamp = getGroundStamp();
+            super.setMotion(Vector3d.ZERO);
+        }
+    }
 
-            double px = getPosX() + (rand.nextDouble() - 0.5);
-            double py = getPosY() + (rand.nextDouble() - 0.5);
-            double pz = getPosZ() + (rand.nextDouble() - 0.5);
+    private boolean shouldWake()
+    {
+        // the client isn't told about block changes, just look around every now and then
+        if (world.isRemote) return ticksExisted % CLIENT_WAKE_INTERVAL == 0;
+        return getGroundStamp() != groundStamp;
+    }
 
-            if (egg == DMLRegistry.ENDER_EGG_BLOCK.get())
-            {
-                double ox = (rand.nextDouble() - 0.5) * 2;
-                double oy = (rand.nextDouble() - 0.5) * 2;
-                double oz = (rand.nextDouble() - 0.5) * 2;
-                world.addParticle(ParticleTypes.PORTAL, px, py, pz, ox, oy, oz);
-            }
-            else
-            {
-                boolean primary = rand.nextInt(3) != 0;
-                float r = egg.getColorR(primary);
-                float g = egg.getColorG(primary);
-                float b = egg.getColorB(primary);
-                world.addParticle(new RedstoneParticleData(r, g, b, 1), px, py + 1, pz, 0, 0, 0);
-            }
+    private long getGroundStamp()
+    {
+        BlockPos pos = getPosition();
+        return BlockChangeTracker.getSectionStamp(world, pos.getX() >> 4, (pos.getY() - 1) >> 4, pos.getZ() >> 4);
+    }
+
+    public void wake()
+    {
+        sleeping = false;
+        restTicks = 0;
+    }
+
+    public boolean isSleeping() { return sleeping; }
+
+    @Override
+    public void setMotion(Vector3d motion)
+    {
+        super.setMotion(motion);
+        if (sleeping && motion.lengthSquared() > SLEEP_MOTION_SQ) wake();
+    }
+
+    @Override
+    public void addVelocity(double x, double y, double z)
+    {
+        super.addVelocity(x, y, z);
+        wake();
+    }
+
+    @Override
+    public void onAddedToWorld()
+    {
+        super.onAddedToWorld();
+        SPATIAL_INDEX.add(this);
+        if (!world.isRemote)
+        {
+            IncubationManager.get(world).add(this, world.getGameTime(), loaded);
+            habitat.watch(world, getPosition());
         }
+        loaded = false;
+    }
 
-        super.tick();
+    @Override
+    public void onRemovedFromWorld()
+    {
+        super.onRemovedFromWorld();
+        SPATIAL_INDEX.remove(this);
+        if (!world.isRemote)
+        {
+            IncubationManager.get(world).remove(this);
+            habitat.unwatch();
+        }
+    }
+
+    /**
+     * The game time this egg hatches at. Since it's absolute, eggs keep incubating while their chunk isn't loaded.
+     */
+    public long getHatchDeadline()
+    {
+        if (hatchDeadline < 0) hatchDeadline = world.getGameTime() + hatchTime;
+        return hatchDeadline;
     }
 
+    /**
+     * Ticks left until this egg hatches.
+     */
+    public int getHatchTime() { return IncubationManager.getTicksLeft(getHatchDeadline(), world.getGameTime()); }
+
     @Override
     public boolean attackEntityFrom(DamageSource source, float amount)
     {
@@ -156,16 +263,46 @@ public class DragonEggEntity extends Entity
         return false;
     }
 
-    public void updateHabitat()
+    private void onHabitatChanged() { IncubationManager.get(world).requestHabitatCheck(this); }
+
+    public void updateHabitat() { updateHabitat(true); }
+
+    /**
+     * @param poll whether to score the breeds even if none of the blocks they look at changed,
+     *             for the breeds that go by biome or light instead.
+     */
+    public void updateHabitat(boolean poll)
+    {
+        HabitatScan scan = habitat.update(world, getPosition());
+        if (!poll && scan.getVersion() == scoredVersion) return;
+        scoredVersion = scan.getVersion();
+
+        // score every breed once, the first one with the most points (and more than 2) wins
+        DragonEggBlock best = null;
+        int bestPoints = 2;
+        for (DragonEggBlock block : getEggBlocks())
+        {
+            int points = block.getHabitatPoints(this, scan);
+            if (points > bestPoints)
+            {
+                best = block;
+                bestPoints = points;
+            }
+        }
+
+        if (best != null) setEggType(best);
+    }
+
+    private static List<DragonEggBlock> getEggBlocks()
     {
-        DMLRegistry.BLOCKS
-                .getEntries()
+        // lazily instantiate, for registry reasons
+        if (EGG_BLOCKS == null) EGG_BLOCKS = DMLRegistry.BLOCKS.getEntries()
                 .stream()
-                .filter(b -> b.get() instanceof DragonEggBlock)
-                .map(b -> (DragonEggBlock) b.get())
-                .filter(b -> b.getHabitatPoints(this) > 2)
-                .max(Comparator.comparingInt(b -> b.getHabitatPoints(this)))
-                .ifPresent(this::setEggType);
+                .map(RegistryObject::get)
+                .filter(DragonEggBlock.class::isInstance)
+                .map(DragonEggBlock.class::cast)
+                .collect(ImmutableList.toImmutableList());
+        return EGG_BLOCKS;
     }
 
     @Override
@@ -1,11 +1,8 @@
 package wolfshotz.dml.entities;
 
-import net.minecraft.block.Blocks;
 import net.minecraft.entity.EntityType;
 import net.minecraft.util.DamageSource;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
-import wolfshotz.dml.util.BetterBlockMatcher;
 
 public class FireDragonEntity extends TameableDragonEntity
 {
@@ -24,13 +21,9 @@ public class FireDragonEntity extends TameableDragonEntity
         if (isInWater()) attackEntityFrom(DamageSource.DROWN, 2.0f);
     }
 
-    public static int getHabitatPoints(DragonEggEntity egg) // todo: make a base method and have it take in a tag for basic habitat points
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
-        int points = 0;
-        BlockPos basePos = egg.getPosition();
-        BetterBlockMatcher matcher = new BetterBlockMatcher(Blocks.FIRE, Blocks.LAVA, Blocks.MAGMA_BLOCK, Blocks.CAMPFIRE);
-        for (BlockPos pos : BlockPos.getAllInBoxMutable(basePos.add(1, 1, 1), basePos.add(-1, -1, -1)))
-            if (matcher.test(egg.world.getBlockState(pos))) ++points;
+        int points = scan.count(HabitatScan.Category.FIRE);
         if (egg.isInLava()) ++points;
         return points;
     }
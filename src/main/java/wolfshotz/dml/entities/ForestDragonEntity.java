@@ -1,11 +1,7 @@
 package wolfshotz.dml.entities;
 
-import net.minecraft.block.Blocks;
 import net.minecraft.entity.EntityType;
-import net.minecraft.tags.BlockTags;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
-import wolfshotz.dml.util.BetterBlockMatcher;
 
 public class ForestDragonEntity extends TameableDragonEntity
 {
@@ -14,13 +10,8 @@ public class ForestDragonEntity extends TameableDragonEntity
         super(type, world);
     }
 
-    public static int getHabitatPoints(DragonEggEntity egg)
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
-        int points = 0;
-        BlockPos basePos = egg.getPosition();
-        BetterBlockMatcher matcher = new BetterBlockMatcher(BlockTags.LEAVES.getAllElements()).add(BlockTags.SAPLINGS.getAllElements()).add(BlockTags.LOGS.getAllElements()).add(Blocks.MOSSY_COBBLESTONE, Blocks.VINE);
-        for (BlockPos pos : BlockPos.getAllInBoxMutable(basePos.add(1, 1, 1), basePos.add(-1, -1, -1)))
-            if (matcher.test(egg.world.getBlockState(pos))) ++points;
-        return points;
+        return scan.count(HabitatScan.Category.FOREST);
     }
 }
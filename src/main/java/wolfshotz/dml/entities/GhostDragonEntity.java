@@ -5,6 +5,7 @@ import net.minecraft.util.SoundEvent;
 import net.minecraft.util.SoundEvents;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import wolfshotz.dml.util.LightCache;
 
 public class GhostDragonEntity extends TameableDragonEntity
 {
@@ -25,7 +26,7 @@ public class GhostDragonEntity extends TameableDragonEntity
         return sound == SoundEvents.ENTITY_SKELETON_AMBIENT? 2 : super.getSoundPitch(sound);
     }
 
-    public static int getHabitatPoints(DragonEggEntity egg)
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
         // woah dude, too high!
         if (egg.getPosY() > egg.world.getHeight() * 0.25) return 0;
@@ -33,9 +34,9 @@ public class GhostDragonEntity extends TameableDragonEntity
         BlockPos pos = egg.getPosition();
 
         // sun is shining!
-        if (egg.world.canBlockSeeSky(pos)) return 0;
+        if (LightCache.canSeeSky(egg.world, pos)) return 0;
 
         // too bright!
-        return egg.world.getLight(pos) <= 4? 0 : 3;
+        return LightCache.getLight(egg.world, pos) <= 4? 0 : 3;
     }
 }
@@ -0,0 +1,120 @@
+package wolfshotz.dml.entities;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ByteOpenHashMap;
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+import net.minecraftforge.event.world.ChunkEvent;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Tells which of the breeds' biome groups the biome at a position belongs to.
+ * <p>
+ * Each biome of a world is classified once into a bitmask of the groups it's in, and the masks are cached per block
+ * for the chunk sections eggs are in, so a lookup is a single array read.
+ * Biomes live in the world's dynamic registries, which stay the same for as long as the world is loaded.
+ */
+public class HabitatBiomes
+{
+    private static final byte UNKNOWN = -1;
+    private static final Map<IWorld, Cache> WORLDS = new MapMaker().weakKeys().makeMap();
+
+    private HabitatBiomes() {}
+
+    public static boolean test(World world, BlockPos pos, Group group)
+    {
+        return test(getGroups(world, pos), group);
+    }
+
+    private static byte getGroups(World world, BlockPos pos)
+    {
+        Cache cache = WORLDS.computeIfAbsent(world, w -> new Cache());
+        byte[] section = cache.sections.computeIfAbsent(SectionPos.worldToSection(pos.toLong()), k -> newSection());
+        int i = (pos.getY() & 15) << 8 | (pos.getZ() & 15) << 4 | (pos.getX() & 15);
+        byte groups = section[i];
+        if (groups == UNKNOWN) section[i] = groups = cache.classify(world, pos);
+        return groups;
+    }
+
+    /**
+     * The bitmask of the groups the biome belongs to, what gets cached per biome.
+     */
+    static byte getGroups(RegistryKey<Biome> key)
+    {
+        byte groups = 0;
+        for (Group group : Group.VALUES)
+            if (group.biomes.get().contains(key)) groups |= group.mask;
+        return groups;
+    }
+
+    static boolean test(byte groups, Group group) { return (groups & group.mask) != 0; }
+
+    private static byte[] newSection()
+    {
+        byte[] section = new byte[4096];
+        Arrays.fill(section, UNKNOWN);
+        return section;
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload evt)
+    {
+        Cache cache = WORLDS.get(evt.getWorld());
+        if (cache == null) return;
+
+        ChunkPos pos = evt.getChunk().getPos();
+        for (int y = 0; y < 16; y++) cache.sections.remove(SectionPos.asLong(pos.x, y, pos.z));
+    }
+
+    public enum Group
+    {
+        END(() -> EndDragonEntity.BIOMES),
+        NETHER(() -> NetherDragonEntity.BIOMES),
+        OCEAN(() -> WaterDragonEntity.BIOMES);
+
+        private static final Group[] VALUES = values();
+
+        private final Supplier<Set<RegistryKey<Biome>>> biomes;
+        private final byte mask = (byte) (1 << ordinal());
+
+        Group(Supplier<Set<RegistryKey<Biome>>> biomes) { this.biomes = biomes; }
+    }
+
+    static class Cache
+    {
+        private final Long2ObjectOpenHashMap<byte[]> sections = new Long2ObjectOpenHashMap<>();
+        private final Reference2ByteOpenHashMap<Biome> biomes = new Reference2ByteOpenHashMap<>();
+
+        Cache() { biomes.defaultReturnValue(UNKNOWN); }
+
+        private byte classify(World world, BlockPos pos)
+        {
+            return classify(world.getBiome(pos), biome -> world.func_242406_i(pos));
+        }
+
+        /**
+         * @param keys looks up the key of the biome in the world's registry, only done the first time it's seen
+         */
+        byte classify(Biome biome, Function<Biome, Optional<RegistryKey<Biome>>> keys)
+        {
+            byte groups = biomes.getByte(biome);
+            if (groups != UNKNOWN) return groups;
+
+            Optional<RegistryKey<Biome>> key = keys.apply(biome);
+            groups = key.isPresent()? getGroups(key.get()) : 0;
+            biomes.put(biome, groups);
+            return groups;
+        }
+    }
+}
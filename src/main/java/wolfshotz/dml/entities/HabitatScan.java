@@ -0,0 +1,180 @@
+package wolfshotz.dml.entities;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.tags.FluidTags;
+import net.minecraft.tags.ITagCollection;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.Tags;
+import wolfshotz.dml.util.BetterBlockMatcher;
+import wolfshotz.dml.util.BlockChangeTracker;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Histogram of the block categories the egg breeds care about, over the 3x3x3 area around an egg.
+ * <p>
+ * The area is scanned once for all breeds, and the histogram is kept until {@link BlockChangeTracker} reports a block
+ * change in one of the chunk sections the area overlaps, the egg moves to another block, or tags are reloaded.
+ * <p>
+ * While {@link #watch watching} a position, block changes inside the area are reported right away to the callback.
+ */
+public class HabitatScan
+{
+    public static final int RADIUS = 1;
+
+    private final int[] counts = new int[Category.VALUES.length];
+    private final int[] previous = new int[Category.VALUES.length];
+    private final BlockChangeTracker.Listener listener = this::onBlockChanged;
+    private final LongList watched = new LongArrayList();
+    private final Runnable onChange;
+    private World watchedWorld;
+    private BlockPos watchedPos;
+    private BlockPos center;
+    private long stamp;
+    private int generation;
+    private int scans;
+    private int version;
+
+    public HabitatScan(Runnable onChange)
+    {
+        this.onChange = onChange;
+    }
+
+    /**
+     * Rescans the area around the position if anything changed since the last scan.
+     */
+    public HabitatScan update(World world, BlockPos pos)
+    {
+        Category.compile();
+        long current = getStamp(world, pos);
+        if (pos.equals(center) && current == stamp && generation == Category.generation) return this;
+
+        System.arraycopy(counts, 0, previous, 0, counts.length);
+        Arrays.fill(counts, 0);
+        for (BlockPos p : BlockPos.getAllInBoxMutable(pos.add(RADIUS, RADIUS, RADIUS), pos.add(-RADIUS, -RADIUS, -RADIUS)))
+        {
+            BlockState state = world.getBlockState(p);
+            for (Category category : Category.VALUES)
+                if (category.test(state)) ++counts[category.ordinal()];
+        }
+
+        if (!pos.equals(center) || !Arrays.equals(counts, previous)) ++version;
+        center = pos.toImmutable();
+        stamp = current;
+        generation = Category.generation;
+        ++scans;
+        return this;
+    }
+
+    public int count(Category category) { return counts[category.ordinal()]; }
+
+    /**
+     * Changes whenever a scan gave different counts than the last one, or the scanned position moved.
+     */
+    public int getVersion() { return version; }
+
+    /**
+     * Listens for block changes in the sections the area around the position overlaps.
+     *
+     * @return false if that position was already watched
+     */
+    public boolean watch(World world, BlockPos pos)
+    {
+        if (world == watchedWorld && pos.equals(watchedPos)) return false;
+
+        unwatch();
+        for (int x = (pos.getX() - RADIUS) >> 4; x <= (pos.getX() + RADIUS) >> 4; x++)
+            for (int y = (pos.getY() - RADIUS) >> 4; y <= (pos.getY() + RADIUS) >> 4; y++)
+                for (int z = (pos.getZ() - RADIUS) >> 4; z <= (pos.getZ() + RADIUS) >> 4; z++)
+                {
+                    long section = SectionPos.asLong(x, y, z);
+                    BlockChangeTracker.addListener(world, section, listener);
+                    watched.add(section);
+                }
+        watchedWorld = world;
+        watchedPos = pos.toImmutable();
+        return true;
+    }
+
+    public void unwatch()
+    {
+        for (int i = 0; i < watched.size(); i++) BlockChangeTracker.removeListener(watchedWorld, watched.getLong(i), listener);
+        watched.clear();
+        watchedWorld = null;
+        watchedPos = null;
+    }
+
+    private void onBlockChanged(@Nullable BlockPos pos)
+    {
+        if (pos == null
+                || (Math.abs(pos.getX() - watchedPos.getX()) <= RADIUS
+                && Math.abs(pos.getY() - watchedPos.getY()) <= RADIUS
+                && Math.abs(pos.getZ() - watchedPos.getZ()) <= RADIUS))
+            onChange.run();
+    }
+
+    /**
+     * Number of times the area actually had to be scanned.
+     */
+    public int getScans() { return scans; }
+
+    // stamps come from an increasing counter, so the newest one of the sections changes when any of them changes
+    private static long getStamp(World world, BlockPos pos)
+    {
+        long stamp = 0;
+        for (int x = (pos.getX() - RADIUS) >> 4; x <= (pos.getX() + RADIUS) >> 4; x++)
+            for (int y = (pos.getY() - RADIUS) >> 4; y <= (pos.getY() + RADIUS) >> 4; y++)
+                for (int z = (pos.getZ() - RADIUS) >> 4; z <= (pos.getZ() + RADIUS) >> 4; z++)
+                    stamp = Math.max(stamp, BlockChangeTracker.getSectionStamp(world, x, y, z));
+        return stamp;
+    }
+
+    /**
+     * Block categories, each compiled into a {@link BetterBlockMatcher} from its blocks and tags.
+     * Matchers are rebuilt whenever the block tags were reloaded (e.g. by datapacks).
+     */
+    public enum Category
+    {
+        FIRE(() -> new BetterBlockMatcher(Blocks.FIRE, Blocks.LAVA, Blocks.MAGMA_BLOCK, Blocks.CAMPFIRE)),
+        FOREST(() -> new BetterBlockMatcher(Blocks.MOSSY_COBBLESTONE, Blocks.VINE).add(BlockTags.LEAVES).add(BlockTags.SAPLINGS).add(BlockTags.LOGS)),
+        ICE(() -> new BetterBlockMatcher(Blocks.SNOW_BLOCK, Blocks.SNOW).add(BlockTags.ICE)),
+        NETHERRACK(() -> new BetterBlockMatcher().add(Tags.Blocks.NETHERRACK)),
+        END_STONE(() -> new BetterBlockMatcher().add(Tags.Blocks.END_STONES)),
+        WATER(null)
+        {
+            @Override
+            boolean test(BlockState state) { return state.getFluidState().isTagged(FluidTags.WATER); }
+        };
+
+        private static final Category[] VALUES = values();
+        private static ITagCollection<Block> compiledTags;
+        private static int generation;
+
+        private final Supplier<BetterBlockMatcher> factory;
+        private BetterBlockMatcher matcher;
+
+        Category(Supplier<BetterBlockMatcher> factory) { this.factory = factory; }
+
+        boolean test(BlockState state) { return matcher.test(state); }
+
+        private static void compile()
+        {
+            ITagCollection<Block> tags = BlockTags.getCollection();
+            if (tags == compiledTags) return;
+
+            for (Category category : VALUES)
+                if (category.factory != null) category.matcher = category.factory.get();
+            compiledTags = tags;
+            ++generation;
+        }
+    }
+}
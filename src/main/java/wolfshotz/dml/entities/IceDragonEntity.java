@@ -1,19 +1,14 @@
 package wolfshotz.dml.entities;
 
-import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
-import net.minecraft.block.FlowingFluidBlock;
 import net.minecraft.entity.EntityType;
 import net.minecraft.pathfinding.PathNodeType;
-import net.minecraft.tags.BlockTags;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.MathHelper;
-import net.minecraft.util.math.shapes.ISelectionContext;
 import net.minecraft.world.World;
-import wolfshotz.dml.util.BetterBlockMatcher;
+import wolfshotz.dml.entities.ai.FrostEngine;
 
 public class IceDragonEntity extends TameableDragonEntity
 {
+    private final FrostEngine frostEngine = new FrostEngine(this);
+
     public IceDragonEntity(EntityType<? extends TameableDragonEntity> type, World world)
     {
         super(type, world);
@@ -28,37 +23,18 @@ public class IceDragonEntity extends TameableDragonEntity
         if (!this.world.isRemote && isAlive()) freezeWater();
     }
 
-    public void freezeWater()
+    @Override
+    public void onRemovedFromWorld()
     {
-        BlockPos pos = getPosition();
-        BlockState blockstate = Blocks.FROSTED_ICE.getDefaultState();
-        float scale = (float) Math.min(16, 2 + (int) (2 * getScale()));
-        BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+        super.onRemovedFromWorld();
 
-        for (BlockPos blockpos : BlockPos.getAllInBoxMutable(pos.add(-scale, -1.0D, -scale), pos.add(scale, -1.0D, scale)))
-        {
-            mutablePos.setPos(blockpos.getX(), blockpos.getY() + 1, blockpos.getZ());
-            if (!world.getBlockState(mutablePos).isAir(world, pos)) continue;
-            if (!blockpos.withinDistance(getPositionVec(), scale)) continue;
-
-            BlockState blockstate2 = world.getBlockState(blockpos);
-            boolean isFull = blockstate2.getBlock() == Blocks.WATER && blockstate2.get(FlowingFluidBlock.LEVEL) == 0;
-            if (isFull && world.func_226663_a_(blockstate, blockpos, ISelectionContext.dummy()))
-            {
-                world.setBlockState(blockpos, blockstate);
-                world.getPendingBlockTicks().scheduleTick(blockpos, Blocks.FROSTED_ICE, MathHelper.nextInt(getRNG(), 60, 120));
-            }
-        }
+        if (!world.isRemote) frostEngine.flush();
     }
 
-    public static int getHabitatPoints(DragonEggEntity egg)
+    public void freezeWater() { frostEngine.tick(); }
+
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
-        int points = 0;
-        BlockPos basePos = egg.getPosition();
-        BetterBlockMatcher matcher = new BetterBlockMatcher(BlockTags.ICE.getAllElements()).add(Blocks.SNOW_BLOCK, Blocks.SNOW);
-        points += (int) BlockPos.getAllInBox(basePos.add(1, 1, 1), basePos.add(-1, -1, -1))
-                .filter(pos -> matcher.test(egg.world.getBlockState(pos).getBlock()))
-                .count();
-        return points;
+        return scan.count(HabitatScan.Category.ICE);
     }
 }
@@ -0,0 +1,203 @@
+package wolfshotz.dml.entities;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Drives the incubation of all dragon eggs in a world: habitat checks, wiggles and hatching.
+ * <p>
+ * Each egg is kept as a record of when it's next due to do something, in a queue ordered by that time.
+ * Every tick only the records that are due are taken off the queue, so eggs that are just sitting there cost nothing.
+ * Wiggles are rolled ahead of time instead of every tick.
+ * <p>
+ * Habitats are checked when blocks around an egg change, and otherwise only every once in a while.
+ */
+public class IncubationManager
+{
+    private static final Map<IWorld, IncubationManager> MANAGERS = new MapMaker().weakKeys().makeMap();
+
+    private final PriorityQueue<Record> queue = new PriorityQueue<>(Comparator.comparingLong(r -> r.due));
+    private final Map<DragonEggEntity, Record> records = new IdentityHashMap<>();
+    private final List<Record> changed = new ArrayList<>();
+    private int dropped; // records of removed eggs still in the queue
+    private final Random rand = new Random();
+
+    public static IncubationManager get(World world) { return MANAGERS.computeIfAbsent(world, w -> new IncubationManager()); }
+
+    /**
+     * @param catchUp whether the egg was just loaded, and may have been unloaded for a while. Its habitat is checked
+     *                right away then, and if its deadline passed while it was away it hatches on this tick.
+     */
+    public void add(DragonEggEntity egg, long now, boolean catchUp)
+    {
+        Record record = new Record(egg, egg.getHatchDeadline(), getFirstHabitatCheck(now, catchUp));
+        record.nextWiggle = rollWiggle(record.hatchDeadline, now, rand);
+        schedule(record);
+        drop(records.put(egg, record));
+    }
+
+    public void remove(DragonEggEntity egg)
+    {
+        drop(records.remove(egg));
+    }
+
+    // removing from the middle of the queue means going through all of it, which adds up when a chunk full of eggs
+    // unloads. Just let go of the egg (and its world) instead, and skip the record once it comes up
+    private void drop(@Nullable Record record)
+    {
+        if (record == null) return;
+        record.egg = null; // may still be in the changed list until the end of the tick as well
+
+        // don't let them pile up if eggs come and go faster than their records come up
+        if (++dropped > queue.size() / 2 && dropped > 64)
+        {
+            queue.removeIf(r -> r.egg == null);
+            dropped = 0;
+        }
+    }
+
+    /**
+     * Has the egg check its habitat at the end of this tick, because blocks around it changed.
+     */
+    public void requestHabitatCheck(DragonEggEntity egg)
+    {
+        Record record = records.get(egg);
+        if (record == null || record.changed) return;
+        record.changed = true;
+        changed.add(record);
+    }
+
+    public int size() { return records.size(); }
+
+    public void tick(long now)
+    {
+        // several changes around the same egg in a tick only cause one check
+        for (int i = 0; i < changed.size(); i++)
+        {
+            Record record = changed.get(i);
+            record.changed = false;
+            if (record.egg != null && record.egg.isAlive()) record.egg.updateHabitat(false);
+        }
+        changed.clear();
+
+        while (!queue.isEmpty() && queue.peek().due <= now)
+        {
+            Record record = queue.poll();
+            if (record.egg == null)
+            {
+                --dropped;
+                continue;
+            }
+            if (!record.egg.isAlive()) continue;
+            DragonEggEntity egg = record.egg;
+
+            if (record.nextHabitatCheck <= now)
+            {
+                egg.updateHabitat();
+                record.nextHabitatCheck = now + DragonEggEntity.CHECK_HABITAT_INTERVAL;
+            }
+
+            if (record.hatchDeadline <= now)
+            {
+                egg.hatch(); // removes the record
+                continue;
+            }
+
+            if (record.nextWiggle <= now)
+            {
+                egg.wiggle();
+                record.nextWiggle = rollWiggle(record.hatchDeadline, now, rand);
+            }
+
+            schedule(record);
+        }
+    }
+
+    private void schedule(Record record)
+    {
+        record.due = getDue(record.hatchDeadline, record.nextHabitatCheck, record.nextWiggle);
+        queue.add(record);
+    }
+
+    // ---- the time keeping, kept apart from the eggs ----
+
+    /**
+     * Reads the deadline from a saved egg, converting the ticks left of eggs saved before deadlines were a thing.
+     *
+     * @return the deadline, or -1 if the tag has neither
+     */
+    public static long readHatchDeadline(CompoundNBT compound, long gameTime)
+    {
+        if (compound.contains(DragonEggEntity.NBT_HATCH_DEADLINE)) return compound.getLong(DragonEggEntity.NBT_HATCH_DEADLINE);
+        if (compound.contains(DragonEggEntity.NBT_HATCH_TIME)) return gameTime + compound.getInt(DragonEggEntity.NBT_HATCH_TIME);
+        return -1;
+    }
+
+    public static int getTicksLeft(long hatchDeadline, long gameTime) { return (int) Math.max(0, Math.min(hatchDeadline - gameTime, Integer.MAX_VALUE)); }
+
+    /**
+     * Eggs that were just loaded check their habitat right away, since it may have been a while.
+     */
+    static long getFirstHabitatCheck(long now, boolean catchUp) { return catchUp? now : now + DragonEggEntity.CHECK_HABITAT_INTERVAL; }
+
+    static long getDue(long hatchDeadline, long nextHabitatCheck, long nextWiggle) { return Math.min(hatchDeadline, Math.min(nextHabitatCheck, nextWiggle)); }
+
+    /**
+     * Eggs close to hatching wiggle with a chance of 1 in the remaining ticks (but at least 1 in 10), each tick.
+     * Rather than rolling that every tick, roll how many ticks it takes until the next one.
+     */
+    static long rollWiggle(long hatchDeadline, long now, Random rand)
+    {
+        long remaining = hatchDeadline - now;
+        if (remaining <= 0) return hatchDeadline;
+        long start = hatchDeadline - (long) DragonEggEntity.EGG_WIGGLE_THRESHOLD;
+        if (remaining >= DragonEggEntity.EGG_WIGGLE_THRESHOLD) return start + 1; // roll again once it's close enough
+
+        double chance = 1d / Math.max(10, remaining);
+        double ticks = Math.log(1 - rand.nextDouble()) / Math.log(1 - chance);
+        return now + 1 + (long) ticks;
+    }
+
+    public static void onWorldTick(TickEvent.WorldTickEvent evt)
+    {
+        if (evt.phase != TickEvent.Phase.END || evt.world.isRemote) return;
+
+        IncubationManager manager = MANAGERS.get(evt.world);
+        if (manager != null) manager.tick(evt.world.getGameTime());
+    }
+
+    public static void onWorldUnload(WorldEvent.Unload evt)
+    {
+        MANAGERS.remove(evt.getWorld());
+    }
+
+    private static class Record
+    {
+        @Nullable private DragonEggEntity egg; // null once removed
+        private final long hatchDeadline;
+        private long nextHabitatCheck;
+        private long nextWiggle;
+        private long due;
+        private boolean changed;
+
+        private Record(DragonEggEntity egg, long hatchDeadline, long nextHabitatCheck)
+        {
+            this.egg = egg;
+            this.hatchDeadline = hatchDeadline;
+            this.nextHabitatCheck = nextHabitatCheck;
+        }
+    }
+}
@@ -1,22 +1,19 @@
 package wolfshotz.dml.entities;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import net.minecraft.entity.EntityType;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.RegistryKey;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.Biomes;
-import net.minecraftforge.common.Tags;
-import wolfshotz.dml.util.BetterBlockMatcher;
 
 /**
  * TODO in 1.16: walk on lava!
  */
 public class NetherDragonEntity extends TameableDragonEntity
 {
-    private static final ImmutableList<RegistryKey<Biome>> BIOMES = ImmutableList.of(Biomes.NETHER_WASTES,
+    public static final ImmutableSet<RegistryKey<Biome>> BIOMES = ImmutableSet.of(Biomes.NETHER_WASTES,
             Biomes.CRIMSON_FOREST,
             Biomes.WARPED_FOREST,
             Biomes.BASALT_DELTAS,
@@ -29,15 +26,15 @@ public class NetherDragonEntity extends TameableDragonEntity
         addImmunities(DamageSource.ON_FIRE, DamageSource.IN_FIRE, DamageSource.LAVA);
     }
 
-    public static int getHabitatPoints(DragonEggEntity egg)
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
-        int points = 0;
-        BlockPos basePose = egg.getPosition();
-        BetterBlockMatcher matcher = new BetterBlockMatcher(Tags.Blocks.NETHERRACK.getAllElements());
+        return getHabitatPoints(scan.count(HabitatScan.Category.NETHERRACK), HabitatBiomes.test(egg.world, egg.getPosition(), HabitatBiomes.Group.NETHER));
+    }
 
-        for (BlockPos pos : BlockPos.getAllInBoxMutable(basePose.add(1, 1, 1), basePose.add(-1, -1, -1)))
-            if (matcher.test(egg.world.getBlockState(pos))) ++points;
-        if (BIOMES.contains(egg.world.getBiome(egg.getPosition()))) points += 2;
+    static int getHabitatPoints(int netherrack, boolean netherBiome)
+    {
+        int points = netherrack;
+        if (netherBiome) points += 2;
 
         return points;
     }
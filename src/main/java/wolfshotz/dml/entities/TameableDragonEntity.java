@@ -18,8 +18,9 @@ import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.network.datasync.DataParameter;
 import net.minecraft.network.datasync.DataSerializers;
 import net.minecraft.network.datasync.EntityDataManager;
-import net.minecraft.pathfinding.FlyingPathNavigator;
 import net.minecraft.pathfinding.GroundPathNavigator;
+import net.minecraft.pathfinding.Path;
+import net.minecraft.pathfinding.PathNavigator;
 import net.minecraft.tags.ItemTags;
 import net.minecraft.util.*;
 import net.minecraft.util.math.BlockPos;
@@ -29,17 +30,22 @@ import net.minecraft.util.text.StringTextComponent;
 import net.minecraft.world.World;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.registries.ForgeRegistries;
+import wolfshotz.dml.DMLConfig;
 import wolfshotz.dml.DMLRegistry;
 import wolfshotz.dml.DragonMountsLegacy;
 import wolfshotz.dml.client.anim.DragonAnimator;
 import wolfshotz.dml.entities.ai.DragonBodyController;
+import wolfshotz.dml.entities.ai.DragonFlyingNavigator;
 import wolfshotz.dml.entities.ai.DragonMoveController;
+import wolfshotz.dml.entities.ai.FlightPrediction;
 import wolfshotz.dml.entities.ai.LifeStageController;
+import wolfshotz.dml.entities.ai.RiderInput;
 import wolfshotz.dml.entities.ai.goals.DragonBabuFollowParent;
 import wolfshotz.dml.entities.ai.goals.DragonBreedGoal;
 import wolfshotz.dml.entities.ai.goals.DragonLandGoal;
 import wolfshotz.dml.misc.DragonEggBlock;
-import wolfshotz.dml.util.MathX;
+import wolfshotz.dml.util.AltitudeCache;
+import wolfshotz.dml.util.EntitySpatialIndex;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
@@ -71,6 +77,10 @@ public abstract class TameableDragonEntity extends TameableEntity
     public static final int BASE_KB_RESISTANCE = 1;
     public static final float BASE_WIDTH = 2.75f; // adult sizes
     public static final float BASE_HEIGHT = 2.75f;
+
+    // every dragon that's currently in a world, for looking up dragons nearby
+    public static final EntitySpatialIndex<TameableDragonEntity> SPATIAL_INDEX = new EntitySpatialIndex<>();
+
     // data value IDs
     private static final DataParameter<Boolean> DATA_FLYING = EntityDataManager.createKey(TameableDragonEntity.class, DataSerializers.BOOLEAN);
     private static final DataParameter<Boolean> DATA_SADDLED = EntityDataManager.createKey(TameableDragonEntity.class, DataSerializers.BOOLEAN);
@@ -85,9 +95,16 @@ public abstract class TameableDragonEntity extends TameableEntity
     // server/client delegates
     public LifeStageController lifeStageController;
     public DragonAnimator animator;
+    public FlightPrediction flightPrediction;
     public final List<DamageSource> damageImmunities = Lists.newArrayList();
     public int reproCount;
 
+    // both navigators live as long as the entity, and get swapped when the flying state changes
+    private final GroundPathNavigator groundNavigator;
+    private final DragonFlyingNavigator flyingNavigator;
+    private int navigatorSwaps;
+    private final RiderInput.Buffer riderInputs = new RiderInput.Buffer();
+
     public TameableDragonEntity(EntityType<? extends TameableDragonEntity> type, World world)
     {
         super(type, world);
@@ -96,7 +113,13 @@ public abstract class TameableDragonEntity extends TameableEntity
         stepHeight = 1;
         ignoreFrustumCheck = true;
         moveController = new DragonMoveController(this);
-        if (isClient()) animator = new DragonAnimator(this);
+        groundNavigator = (GroundPathNavigator) navigator;
+        flyingNavigator = new DragonFlyingNavigator(this, world);
+        if (isClient())
+        {
+            animator = new DragonAnimator(this);
+            flightPrediction = new FlightPrediction(this);
+        }
     }
 
     @Override
@@ -191,7 +214,19 @@ public abstract class TameableDragonEntity extends TameableEntity
         return !isHatchling();
     }
 
-    public boolean shouldFly() { return canFly() && !isInWater() && getAltitude() > ALTITUDE_FLYING_THRESHOLD; }
+    public boolean shouldFly() { return canFly() && !isInWater() && isAboveFlyingThreshold(); }
+
+    /**
+     * Returns true if the dragon is high enough to fly.
+     * A flying dragon only lands once it sinks below the threshold minus the configured hysteresis band,
+     * so hovering right at the threshold doesn't flip the state every few ticks.
+     */
+    public boolean isAboveFlyingThreshold()
+    {
+        double threshold = ALTITUDE_FLYING_THRESHOLD;
+        if (isFlying()) threshold -= DMLConfig.COMMON.flightHysteresis.get();
+        return getAltitude() > threshold;
+    }
 
     /**
      * Returns true if the entity is flying.
@@ -213,6 +248,29 @@ public abstract class TameableDragonEntity extends TameableEntity
         return lifeStageController;
     }
 
+    @Override
+    public void onAddedToWorld()
+    {
+        super.onAddedToWorld();
+        SPATIAL_INDEX.add(this);
+        if (isClient()) animator.attach();
+    }
+
+    @Override
+    public void onRemovedFromWorld()
+    {
+        super.onRemovedFromWorld();
+        SPATIAL_INDEX.remove(this);
+        if (isClient()) animator.detach();
+    }
+
+    @Override
+    public void tick()
+    {
+        super.tick();
+        SPATIAL_INDEX.update(this);
+    }
+
     @Override
     public void livingTick()
     {
@@ -227,13 +285,11 @@ public abstract class TameableDragonEntity extends TameableEntity
                 // notify client
                 setFlying(flying);
 
-                // update AI follow range (needs to be updated before creating
-                // new PathNavigate!)
+                // update AI follow range (navigators read it when computing a path)
                 getAttribute(FOLLOW_RANGE).setBaseValue(flying? BASE_FOLLOW_RANGE_FLYING : BASE_FOLLOW_RANGE);
 
                 // update pathfinding method
-                if (flying) navigator = new FlyingPathNavigator(this, world);
-                else navigator = new GroundPathNavigator(this, world);
+                swapNavigator(flying? flyingNavigator : groundNavigator);
             }
 
 //            // update breath state
@@ -245,64 +301,99 @@ public abstract class TameableDragonEntity extends TameableEntity
         }
         else
         {
-            // update animations on the client
-            animator.tick();
+            // animations are ticked all at once by the AnimationStore
             updateArmSwingProgress();
         }
 
         super.livingTick();
     }
 
+    /**
+     * Switches to the given navigator, carrying over the path currently being followed and the speed it's followed at.
+     */
+    private void swapNavigator(PathNavigator to)
+    {
+        PathNavigator from = navigator;
+        if (from == to) return;
+
+        Path path = from.getPath();
+        double speed = from.speed;
+        from.clearPath();
+        navigator = to;
+        if (path != null && !path.isFinished()) to.setPath(path, speed);
+        ++navigatorSwaps;
+    }
+
+    public int getNavigatorSwaps() { return navigatorSwaps; }
+
     @Override
     public void travel(Vector3d vec3d)
     {
         if (!isFlying()) super.travel(vec3d);
 
-        if (world.isRemote) return;
         PlayerEntity rider = getRidingPlayer();
-        if (rider == null || !isOwner(rider)) return;
+        if (rider == null || !isOwner(rider))
+        {
+            riderInputs.reset();
+            return;
+        }
 
-        rotationYawHead = rider.rotationYawHead;
-        rotationPitch = rider.rotationPitch / 2;
+        RiderInput input;
+        if (isClient())
+        {
+            // the server steers the dragon, unless it's us flying it. Then run the same steering locally
+            // so the dragon responds right away instead of a round trip later.
+            if (!flightPrediction.isActive())
+            {
+                flightPrediction.reset();
+                return;
+            }
 
-        if (world.isRemote) return;
+            // on the server, the AI ticks the move helper before travel
+            getMoveHelper().tick();
+            flightPrediction.record();
+            input = RiderInput.sample(rider);
+        }
+        else
+        {
+            // play back what the rider sent, in the order they sent it. Until something arrives (or if the rider
+            // doesn't send any), steer with what the vanilla packets told us
+            input = riderInputs.tick();
+            if (input == null) input = RiderInput.sample(rider);
+        }
 
+        rotationYawHead = input.getYaw();
+        rotationPitch = input.getPitch() / 2;
 
         // lift off with a jump
-        if (!isFlying() && rider.isJumping) liftOff();
-
-        double x = getPosX();
-        double y = getPosY();
-        double z = getPosZ();
+        if (isServer() && !isFlying() && input.isJumping()) liftOff();
 
         // control direction with movement keys
-        if (rider.moveStrafing != 0 || rider.moveForward != 0)
-        {
-            Vector3d wp = rider.getLookVec();
+        Vector3d target = input.getMoveTarget(getPosX(), getPosY(), getPosZ());
+        getMoveHelper().setMoveTo(target.x, target.y, target.z, 1);
+    }
 
-            if (rider.moveForward < 0) wp = wp.rotateYaw(MathX.PI_F);
-            else if (rider.moveStrafing > 0) wp = wp.rotateYaw(MathX.PI_F * 0.5f);
-            else if (rider.moveStrafing < 0) wp = wp.rotateYaw(MathX.PI_F * -0.5f);
+    public RiderInput.Buffer getRiderInputs() { return riderInputs; }
 
-            x += wp.x * 10;
-            y += wp.y * 10;
-            z += wp.z * 10;
+    @Override
+    public void setPositionAndRotationDirect(double x, double y, double z, float yaw, float pitch, int posRotationIncrements, boolean teleport)
+    {
+        if (flightPrediction != null && flightPrediction.isActive())
+        {
+            // we're ahead of the server while predicting, only take its position if we drifted too far from it
+            if (!teleport && flightPrediction.accepts(x, y, z)) return;
 
+            setPositionAndRotation(x, y, z, yaw, pitch);
+            return;
         }
 
-        getMoveHelper().setMoveTo(x, y, z, 1);
+        super.setPositionAndRotationDirect(x, y, z, yaw, pitch, posRotationIncrements, teleport);
     }
 
     /**
      * Returns the distance to the ground while the entity is flying.
      */
-    public double getAltitude()
-    {
-        BlockPos.Mutable pos = getPosition().toMutable();
-        while (pos.getY() > 0 && !world.getBlockState(pos).getMaterial().isSolid()) pos.move(0, -1, 0);
-
-        return getPosY() - pos.getY();
-    }
+    public double getAltitude() { return AltitudeCache.getAltitude(this); }
 
     /**
      * Causes this entity to lift off if it can fly.
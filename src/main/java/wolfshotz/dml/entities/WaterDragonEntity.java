@@ -1,23 +1,20 @@
 package wolfshotz.dml.entities;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import net.minecraft.entity.CreatureAttribute;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
-import net.minecraft.tags.FluidTags;
 import net.minecraft.util.RegistryKey;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.Biomes;
 
 public class WaterDragonEntity extends TameableDragonEntity
 {
-    private static final ImmutableList<RegistryKey<Biome>> BIOMES = ImmutableList.of(Biomes.OCEAN,
+    public static final ImmutableSet<RegistryKey<Biome>> BIOMES = ImmutableSet.of(Biomes.OCEAN,
             Biomes.COLD_OCEAN,
             Biomes.DEEP_COLD_OCEAN,
             Biomes.DEEP_FROZEN_OCEAN,
-            Biomes.DEEP_FROZEN_OCEAN,
             Biomes.DEEP_LUKEWARM_OCEAN,
             Biomes.DEEP_OCEAN,
             Biomes.DEEP_WARM_OCEAN,
@@ -33,7 +30,7 @@ public class WaterDragonEntity extends TameableDragonEntity
     @Override
     public boolean shouldFly()
     { // we can fly in water!
-        return canFly() && getAltitude() > ALTITUDE_FLYING_THRESHOLD;
+        return canFly() && isAboveFlyingThreshold();
     }
 
     @Override
@@ -48,15 +45,16 @@ public class WaterDragonEntity extends TameableDragonEntity
     @Override
     public boolean canBeRiddenInWater(Entity rider) { return true; }
 
-    public static int getHabitatPoints(DragonEggEntity egg)
+    public static int getHabitatPoints(DragonEggEntity egg, HabitatScan scan)
     {
-        int points = 0;
-        BlockPos basePos = egg.getPosition();
+        return getHabitatPoints(scan.count(HabitatScan.Category.WATER), egg.isInWater(), HabitatBiomes.test(egg.world, egg.getPosition(), HabitatBiomes.Group.OCEAN));
+    }
 
-        for (BlockPos pos : BlockPos.getAllInBoxMutable(basePos.add(1, 1, 1), basePos.add(-1, -1, -1)))
-            if (egg.world.getFluidState(pos).isTagged(FluidTags.WATER)) ++points;
-        if (egg.isInWater()) ++points;
-        if (BIOMES.contains(egg.world.getBiome(egg.getPosition()))) points += 2;
+    static int getHabitatPoints(int water, boolean inWater, boolean oceanBiome)
+    {
+        int points = water;
+        if (inWater) ++points;
+        if (oceanBiome) points += 2;
         return points;
     }
 }
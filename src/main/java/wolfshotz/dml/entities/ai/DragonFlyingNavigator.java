@@ -0,0 +1,80 @@
+package wolfshotz.dml.entities.ai;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.pathfinding.FlyingPathNavigator;
+import net.minecraft.pathfinding.Path;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+
+/**
+ * Flying navigator that hands path finding off to the {@link FlightPathPlanner}.
+ * <p>
+ * A path request immediately returns a straight line to the target so the dragon starts moving,
+ * and the planned path replaces it once the planner delivers it.
+ * Requests for (roughly) the same target keep following the current path instead of planning again.
+ */
+public class DragonFlyingNavigator extends FlyingPathNavigator
+{
+    private static final double REPLAN_DISTANCE_SQ = 16; // target has to move 4 blocks before we plan again
+
+    private FlightPathPlanner.Request request;
+    private BlockPos plannedTarget;
+
+    public DragonFlyingNavigator(MobEntity entity, World world)
+    {
+        super(entity, world);
+    }
+
+    @Nullable
+    @Override
+    public Path getPathToPos(BlockPos pos, int accuracy)
+    {
+        if (world.isRemote || !canNavigate()) return super.getPathToPos(pos, accuracy);
+
+        if (plannedTarget != null && plannedTarget.distanceSq(pos) <= REPLAN_DISTANCE_SQ && currentPath != null && !currentPath.isFinished())
+            return currentPath;
+
+        cancelPlanning();
+        plannedTarget = pos.toImmutable();
+        request = FlightPathPlanner.plan(entity, plannedTarget);
+        return FlightPathPlanner.direct(plannedTarget);
+    }
+
+    // vanilla goes straight to the vanilla path finder for entity targets (e.g. following the owner)
+    @Nullable
+    @Override
+    public Path getPathToEntity(Entity entity, int accuracy)
+    {
+        return getPathToPos(entity.getPosition(), accuracy);
+    }
+
+    @Override
+    public void tick()
+    {
+        if (request != null && request.isDone())
+        {
+            Path planned = request.getPath();
+            request = null;
+            if (planned != null && !noPath()) setPath(planned, speed); // only if we're still following something
+        }
+
+        super.tick();
+    }
+
+    @Override
+    public void clearPath()
+    {
+        super.clearPath();
+        cancelPlanning();
+        plannedTarget = null;
+    }
+
+    private void cancelPlanning()
+    {
+        if (request != null) request.cancel();
+        request = null;
+    }
+}
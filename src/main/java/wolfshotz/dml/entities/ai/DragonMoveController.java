@@ -3,10 +3,14 @@ package wolfshotz.dml.entities.ai;
 import net.minecraft.entity.MoverType;
 import net.minecraft.entity.ai.attributes.Attributes;
 import net.minecraft.entity.ai.controller.MovementController;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.vector.Vector3d;
 import wolfshotz.dml.entities.TameableDragonEntity;
 
-//todo ditch this in favor of common-sided movement. Smoother on client
+/**
+ * Flies the dragon straight at the move target. Runs on the server through the AI,
+ * and on the client of a player flying the dragon, see {@link FlightPrediction}.
+ */
 public class DragonMoveController extends MovementController
 {
     private final float YAW_SPEED = 5;
@@ -28,35 +32,26 @@ public class DragonMoveController extends MovementController
             return;
         }
 
-        Vector3d dragonPos = dragon.getPositionVec();
-        Vector3d movePos = new Vector3d(posX, posY, posZ);
+        // work on plain doubles, this runs every tick for every flying dragon
+        double dx = posX - dragon.getPosX();
+        double dy = posY - dragon.getPosY();
+        double dz = posZ - dragon.getPosZ();
+        double distSq = dx * dx + dy * dy + dz * dz;
 
-        // get direction vector by subtracting the current position from the
-        // target position and normalizing the result
-        Vector3d dir = movePos.subtract(dragonPos).normalize();
-
-        // get euclidean distance to target
-        double dist = dragonPos.distanceTo(movePos);
-
-        // move towards target if it's far enough away
-        if (dist > 1.5)
-        {
-            double flySpeed = dragon.getAttribute(Attributes.FLYING_SPEED).getValue();
-
-            // update velocity to approach target
-            dragon.setMotion(dir.scale(flySpeed));
-        }
-        else
-        {
-            // just slow down and hover at current location
-            dragon.setMotion(dragon.getMotion().scale(0.8d));
-            dragon.setMotion(dragon.getMotion().add(0, Math.sin(dragon.ticksExisted / 5) * 0.03, 0));
-        }
+        // bob up and down while hovering. Not under a rider though: ticksExisted differs between the server and the
+        // rider's client, so the predicted dragon would bob differently than the real one
+        double bob = dragon.isBeingRidden()? 0 : Math.sin(dragon.ticksExisted / 5) * 0.03;
+        dragon.setMotion(getFlightMotion(dx, dy, dz, dragon.getMotion(), dragon.getAttribute(Attributes.FLYING_SPEED).getValue(), bob));
 
         // face entity towards target
+        double dist = Math.sqrt(distSq);
         if (dist > 2.5E-7)
         {
-            float newYaw = (float) Math.toDegrees(Math.PI * 2 - Math.atan2(dir.x, dir.z));
+            // get direction vector by normalizing the offset to the target (same precision as Vector3d#normalize)
+            double length = MathHelper.sqrt(distSq);
+            double dirX = length < 1.0E-4? 0 : dx / length;
+            double dirZ = length < 1.0E-4? 0 : dz / length;
+            float newYaw = (float) Math.toDegrees(Math.PI * 2 - Math.atan2(dirX, dirZ));
             dragon.rotationYaw = limitAngle(dragon.rotationYaw, newYaw, YAW_SPEED);
             dragon.setAIMoveSpeed((float) (speed * dragon.getAttribute(Attributes.MOVEMENT_SPEED).getValue()));
         }
@@ -64,4 +59,24 @@ public class DragonMoveController extends MovementController
         // apply movement
         dragon.move(MoverType.SELF, dragon.getMotion());
     }
+
+    /**
+     * The motion for a tick of flying, given the offset to the target. Kept apart from the dragon, so the steering
+     * both sides run can be checked on its own.
+     */
+    public static Vector3d getFlightMotion(double dx, double dy, double dz, Vector3d motion, double flySpeed, double bob)
+    {
+        double distSq = dx * dx + dy * dy + dz * dz;
+
+        // move towards target if it's far enough away
+        if (Math.sqrt(distSq) > 1.5)
+        {
+            // get direction vector by normalizing the offset to the target (same precision as Vector3d#normalize)
+            double length = MathHelper.sqrt(distSq);
+            return new Vector3d(dx / length * flySpeed, dy / length * flySpeed, dz / length * flySpeed);
+        }
+
+        // just slow down and hover at current location
+        return new Vector3d(motion.x * 0.8d, motion.y * 0.8d + bob, motion.z * 0.8d);
+    }
 }
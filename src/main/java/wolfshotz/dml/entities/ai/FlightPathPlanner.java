@@ -0,0 +1,345 @@
+package wolfshotz.dml.entities.ai;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.MobEntity;
+import net.minecraft.pathfinding.Path;
+import net.minecraft.pathfinding.PathPoint;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraftforge.event.world.ChunkEvent;
+import wolfshotz.dml.util.BlockChangeTracker;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plans flight paths on a coarse 3D grid, off the server thread.
+ * <p>
+ * Planning is split in two: {@link #plan} snapshots the terrain on the calling (server) thread as a heightmap per
+ * grid column, which only reads already loaded chunks, then hands it to a worker that runs A* over the grid cells.
+ * The column heights are cached per chunk, so a snapshot usually just copies a few hundred cached values.
+ * A cell is free when its whole column footprint lies above the terrain, so the snapshot stays tiny no matter how
+ * much air there is to fly through.
+ */
+public class FlightPathPlanner
+{
+    public static final int CELL = 4; // blocks per cell edge
+    public static final int RADIUS = 12; // horizontal grid radius, in cells
+    public static final int HEIGHT = 16; // vertical grid size, in cells
+    private static final int UNLOADED = 256; // unloaded columns are treated as walls
+    private static final int[][] NEIGHBORS = buildNeighbors();
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 4),
+            new ThreadFactoryBuilder().setNameFormat("DragonMounts Flight Planner #%d").setDaemon(true).build());
+
+    private static final Map<IWorld, Long2ObjectOpenHashMap<Surface>> SURFACES = new MapMaker().weakKeys().makeMap();
+
+    private FlightPathPlanner() {}
+
+    /**
+     * Snapshots the terrain around the entity and starts planning a path to the target on a worker thread.
+     * Must be called from the thread owning the entity's world.
+     */
+    public static Request plan(MobEntity entity, BlockPos target)
+    {
+        BlockPos from = entity.getPosition();
+        Grid grid = Grid.snapshot(entity.world, from, MathHelper.ceil(entity.getHeight()));
+        Request request = new Request(target.toImmutable());
+        request.future = CompletableFuture.supplyAsync(() -> search(grid, from, request), WORKERS);
+        return request;
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload evt)
+    {
+        Long2ObjectOpenHashMap<Surface> chunks = SURFACES.get(evt.getWorld());
+        if (chunks != null) chunks.remove(evt.getChunk().getPos().asLong());
+    }
+
+    /**
+     * Straight line path to the target, used while the planner is working.
+     */
+    public static Path direct(BlockPos target)
+    {
+        return new Path(Lists.newArrayList(new PathPoint(target.getX(), target.getY(), target.getZ())), target, true);
+    }
+
+    private static Path search(Grid grid, BlockPos from, Request request)
+    {
+        int start = grid.index(grid.cellX(from.getX()), MathHelper.clamp(grid.cellY(from.getY()), 0, grid.height - 1), grid.cellZ(from.getZ()));
+        BlockPos target = request.target;
+        int tx = MathHelper.clamp(grid.cellX(target.getX()), 0, grid.size - 1);
+        int tz = MathHelper.clamp(grid.cellZ(target.getZ()), 0, grid.size - 1);
+        int ty = MathHelper.clamp(grid.cellY(target.getY()), 0, grid.height - 1);
+        boolean reaches = grid.contains(target);
+
+        // target is on (or in) the terrain, aim for the first free cell above it and descend from there
+        while (ty < grid.height - 1 && !grid.isFree(tx, ty, tz)) ty++;
+        if (!grid.isFree(tx, ty, tz)) return null;
+        int goal = grid.index(tx, ty, tz);
+
+        float[] cost = new float[grid.cells()];
+        int[] parent = new int[grid.cells()];
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        cost[start] = 0;
+        parent[start] = start;
+
+        PriorityQueue<Node> open = new PriorityQueue<>();
+        open.add(new Node(start, heuristic(grid, start, goal)));
+
+        while (!open.isEmpty())
+        {
+            if (request.cancelled) return null;
+
+            Node node = open.poll();
+            if (node.index == goal) return toPath(grid, parent, start, goal, target, reaches);
+            if (node.estimate > cost[node.index] + heuristic(grid, node.index, goal)) continue; // stale entry
+
+            int x = grid.x(node.index), y = grid.y(node.index), z = grid.z(node.index);
+            for (int[] offset : NEIGHBORS)
+            {
+                int nx = x + offset[0], ny = y + offset[1], nz = z + offset[2];
+                if (!grid.isFree(nx, ny, nz)) continue;
+
+                // don't cut corners over the terrain
+                int low = Math.min(y, ny);
+                if (offset[0] != 0 && offset[2] != 0 && (!grid.isFree(nx, low, z) || !grid.isFree(x, low, nz)))
+                    continue;
+
+                int next = grid.index(nx, ny, nz);
+                float nextCost = cost[node.index] + MathHelper.sqrt(offset[0] * offset[0] + offset[1] * offset[1] + offset[2] * offset[2]);
+                if (nextCost >= cost[next]) continue;
+
+                cost[next] = nextCost;
+                parent[next] = node.index;
+                open.add(new Node(next, nextCost + heuristic(grid, next, goal)));
+            }
+        }
+
+        return null;
+    }
+
+    private static float heuristic(Grid grid, int from, int to)
+    {
+        int dx = grid.x(from) - grid.x(to), dy = grid.y(from) - grid.y(to), dz = grid.z(from) - grid.z(to);
+        return MathHelper.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static Path toPath(Grid grid, int[] parent, int start, int goal, BlockPos target, boolean reaches)
+    {
+        Deque<Integer> cells = new ArrayDeque<>();
+        for (int i = goal; i != start; i = parent[i]) cells.addFirst(i);
+
+        List<PathPoint> points = Lists.newArrayList();
+        int prevX = grid.x(start), prevY = grid.y(start), prevZ = grid.z(start);
+        int dirX = 0, dirY = 0, dirZ = 0;
+        for (int cell : cells)
+        {
+            int x = grid.x(cell), y = grid.y(cell), z = grid.z(cell);
+
+            // merge straight runs into one waypoint
+            if (x - prevX == dirX && y - prevY == dirY && z - prevZ == dirZ && !points.isEmpty())
+                points.remove(points.size() - 1);
+
+            dirX = x - prevX;
+            dirY = y - prevY;
+            dirZ = z - prevZ;
+            prevX = x;
+            prevY = y;
+            prevZ = z;
+            points.add(new PathPoint(grid.blockX(x), grid.blockY(y), grid.blockZ(z)));
+        }
+        if (reaches) points.add(new PathPoint(target.getX(), target.getY(), target.getZ()));
+        if (points.isEmpty()) return null;
+
+        return new Path(points, target, reaches);
+    }
+
+    private static int[][] buildNeighbors()
+    {
+        List<int[]> offsets = Lists.newArrayList();
+        for (int x = -1; x <= 1; x++)
+            for (int y = -1; y <= 1; y++)
+                for (int z = -1; z <= 1; z++)
+                    if (x != 0 || y != 0 || z != 0) offsets.add(new int[]{x, y, z});
+        return offsets.toArray(new int[0][]);
+    }
+
+    public static class Request
+    {
+        public final BlockPos target;
+        private volatile boolean cancelled;
+        private CompletableFuture<Path> future;
+
+        private Request(BlockPos target) { this.target = target; }
+
+        public void cancel()
+        {
+            cancelled = true;
+            future.cancel(false);
+        }
+
+        public boolean isDone() { return future.isDone(); }
+
+        /**
+         * Returns the planned path, or null if planning failed, was cancelled or isn't done yet.
+         */
+        public Path getPath() { return isDone() && !future.isCompletedExceptionally()? future.getNow(null) : null; }
+    }
+
+    private static class Node implements Comparable<Node>
+    {
+        private final int index;
+        private final float estimate;
+
+        private Node(int index, float estimate)
+        {
+            this.index = index;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public int compareTo(Node other) { return Float.compare(estimate, other.estimate); }
+    }
+
+    /**
+     * Terrain height of every cell column of a chunk, kept until {@link BlockChangeTracker} reports a change in it,
+     * so planning only reads the heightmaps of chunks that changed since the last request around them.
+     */
+    private static class Surface
+    {
+        private static final int CELLS = 16 / CELL;
+
+        private final int x, z;
+        private final long stamp;
+        private final int[] tops = new int[CELLS * CELLS]; // first free y above the terrain, per cell column
+
+        private Surface(IChunk chunk, long stamp)
+        {
+            this.x = chunk.getPos().x;
+            this.z = chunk.getPos().z;
+            this.stamp = stamp;
+
+            for (int x = 0; x < 16; x++)
+                for (int z = 0; z < 16; z++)
+                {
+                    int top = chunk.getTopBlockY(Heightmap.Type.MOTION_BLOCKING, x, z) + 1;
+                    int i = (x / CELL) * CELLS + z / CELL;
+                    if (top > tops[i]) tops[i] = top;
+                }
+        }
+
+        @Nullable
+        private static Surface get(World world, Long2ObjectOpenHashMap<Surface> chunks, int chunkX, int chunkZ)
+        {
+            long key = ChunkPos.asLong(chunkX, chunkZ);
+            long stamp = BlockChangeTracker.getChunkStamp(world, chunkX, chunkZ);
+            Surface surface = chunks.get(key);
+            if (surface != null && surface.stamp == stamp) return surface;
+
+            IChunk chunk = world.getChunkProvider().getChunk(chunkX, chunkZ, false);
+            if (chunk == null)
+            {
+                chunks.remove(key);
+                return null;
+            }
+            chunks.put(key, surface = new Surface(chunk, stamp));
+            return surface;
+        }
+
+        private int get(int blockX, int blockZ) { return tops[((blockX & 15) / CELL) * CELLS + (blockZ & 15) / CELL]; }
+    }
+
+    private static class Grid
+    {
+        private final int originX, originY, originZ;
+        private final int size, height;
+        private final int clearance;
+        private final int[] surface; // first free y above the terrain, per cell column
+
+        private Grid(int originX, int originY, int originZ, int height, int clearance)
+        {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.size = RADIUS * 2 + 1;
+            this.height = height;
+            this.clearance = clearance;
+            this.surface = new int[size * size];
+        }
+
+        private static Grid snapshot(World world, BlockPos center, int clearance)
+        {
+            int originX = (Math.floorDiv(center.getX(), CELL) - RADIUS) * CELL;
+            int originZ = (Math.floorDiv(center.getZ(), CELL) - RADIUS) * CELL;
+            int originY = MathHelper.clamp(Math.floorDiv(center.getY(), CELL) - HEIGHT / 2, 0, world.getHeight() / CELL - 1) * CELL;
+            Grid grid = new Grid(originX, originY, originZ, Math.min(HEIGHT, (world.getHeight() - originY) / CELL), clearance);
+
+            Long2ObjectOpenHashMap<Surface> chunks = SURFACES.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>());
+            Surface chunk = null;
+            for (int x = 0; x < grid.size; x++)
+            {
+                for (int z = 0; z < grid.size; z++)
+                {
+                    int blockX = originX + x * CELL, blockZ = originZ + z * CELL;
+                    if (chunk == null || chunk.x != blockX >> 4 || chunk.z != blockZ >> 4)
+                        chunk = Surface.get(world, chunks, blockX >> 4, blockZ >> 4);
+
+                    grid.surface[x * grid.size + z] = chunk == null? UNLOADED : chunk.get(blockX, blockZ);
+                }
+            }
+
+            return grid;
+        }
+
+        private boolean isFree(int x, int y, int z)
+        {
+            if (x < 0 || y < 0 || z < 0 || x >= size || y >= height || z >= size) return false;
+            int bottom = originY + y * CELL;
+            return bottom >= surface[x * size + z] && bottom + clearance <= originY + (height + 1) * CELL; // room for the body
+        }
+
+        private boolean contains(BlockPos pos)
+        {
+            int x = cellX(pos.getX()), y = cellY(pos.getY()), z = cellZ(pos.getZ());
+            return x >= 0 && y >= 0 && z >= 0 && x < size && y < height && z < size;
+        }
+
+        private int cells() { return size * size * height; }
+
+        private int index(int x, int y, int z) { return (x * size + z) * height + y; }
+
+        private int x(int index) { return index / height / size; }
+
+        private int y(int index) { return index % height; }
+
+        private int z(int index) { return index / height % size; }
+
+        private int cellX(int blockX) { return Math.floorDiv(blockX - originX, CELL); }
+
+        private int cellY(int blockY) { return Math.floorDiv(blockY - originY, CELL); }
+
+        private int cellZ(int blockZ) { return Math.floorDiv(blockZ - originZ, CELL); }
+
+        private int blockX(int cellX) { return originX + cellX * CELL + CELL / 2; }
+
+        private int blockY(int cellY) { return originY + cellY * CELL; }
+
+        private int blockZ(int cellZ) { return originZ + cellZ * CELL + CELL / 2; }
+    }
+}
@@ -0,0 +1,82 @@
+package wolfshotz.dml.entities.ai;
+
+import net.minecraft.entity.player.PlayerEntity;
+import wolfshotz.dml.entities.TameableDragonEntity;
+
+/**
+ * Client side prediction of a dragon flown by the local player.
+ * <p>
+ * While active, the client runs the same steering as the server ({@link TameableDragonEntity#travel}) every tick
+ * instead of waiting for the server to move the dragon. Position updates from the server arrive a round trip late,
+ * so they're compared against the positions we predicted over the last second rather than the current one,
+ * and only taken when none of them is close enough.
+ * <p>
+ * The server still sends the regular entity position updates to the rider; the tolerance is only applied here,
+ * when they're received.
+ */
+public class FlightPrediction
+{
+    private static final int HISTORY = 20;
+    private static final double TOLERANCE_SQ = 1.5 * 1.5;
+
+    private final TameableDragonEntity dragon;
+    private final double[] history = new double[HISTORY * 3];
+    private int head, size;
+
+    public FlightPrediction(TameableDragonEntity dragon)
+    {
+        this.dragon = dragon;
+    }
+
+    /**
+     * Whether the local player is flying this dragon, meaning we're predicting its movement.
+     */
+    public boolean isActive()
+    {
+        PlayerEntity rider = dragon.getRidingPlayer();
+        return dragon.world.isRemote && dragon.isFlying() && rider != null && rider.isUser() && dragon.isOwner(rider);
+    }
+
+    /**
+     * Remembers the predicted position after this tick's movement.
+     */
+    public void record()
+    {
+        record(dragon.getPosX(), dragon.getPosY(), dragon.getPosZ());
+    }
+
+    void record(double x, double y, double z)
+    {
+        int i = head * 3;
+        history[i] = x;
+        history[i + 1] = y;
+        history[i + 2] = z;
+        head = (head + 1) % HISTORY;
+        if (size < HISTORY) ++size;
+    }
+
+    /**
+     * Returns true if the position from the server is close enough to one we predicted to keep ours.
+     * Otherwise, the prediction is dropped and the server position should be taken.
+     */
+    public boolean accepts(double x, double y, double z)
+    {
+        if (size == 0) return true; // just started, we're where the server put us
+
+        for (int n = 0; n < size; n++)
+        {
+            int i = n * 3;
+            double dx = history[i] - x, dy = history[i + 1] - y, dz = history[i + 2] - z;
+            if (dx * dx + dy * dy + dz * dz <= TOLERANCE_SQ) return true;
+        }
+
+        reset();
+        return false;
+    }
+
+    public void reset()
+    {
+        head = 0;
+        size = 0;
+    }
+}
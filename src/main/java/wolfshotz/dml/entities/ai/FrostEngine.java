@@ -0,0 +1,200 @@
+package wolfshotz.dml.entities.ai;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.FlowingFluidBlock;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.util.math.shapes.ISelectionContext;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import wolfshotz.dml.DMLConfig;
+import wolfshotz.dml.entities.TameableDragonEntity;
+
+import java.util.Map;
+
+/**
+ * Frost walking for ice dragons: freezes still water in a disk below the dragon.
+ * <p>
+ * Instead of going over the whole disk every tick, only the columns the dragon newly covered since the last pass are
+ * looked at. A dragon that hasn't moved costs nothing, apart from a full pass every second while there is water or
+ * frosted ice around, to freeze water that melted back. All ice dragons in a world share a budget of columns they
+ * may visit each tick; a pass cut short by it picks up where it stopped on the next tick if the dragon stayed put, or
+ * starts over with the whole disk if it moved, so every column gets looked at eventually.
+ * <p>
+ * Water found to freeze is collected per chunk section and frozen in batches every few ticks, see {@link #flush}.
+ */
+public class FrostEngine
+{
+    private static final int REFRESH_INTERVAL = 20;
+    private static final int FLUSH_INTERVAL = 5;
+    private static final Map<IWorld, Budget> BUDGETS = new MapMaker().weakKeys().makeMap();
+
+    private static long visited, frozen, sectionUpdates;
+
+    private final TameableDragonEntity dragon;
+    private Vector3d lastPos;
+    private int lastY;
+    private float lastScale;
+    private boolean foundWater;
+    private boolean incomplete;
+    private int resumeX, resumeZ; // where an incomplete pass stopped
+    private int refreshTimer;
+    private int flushTimer = FLUSH_INTERVAL;
+    private final Long2ObjectOpenHashMap<LongSet> pending = new Long2ObjectOpenHashMap<>(); // positions to freeze, per section
+
+    public FrostEngine(TameableDragonEntity dragon)
+    {
+        this.dragon = dragon;
+    }
+
+    public void tick()
+    {
+        World world = dragon.world;
+        Vector3d vec = dragon.getPositionVec();
+        BlockPos pos = dragon.getPosition();
+        float scale = (float) Math.min(16, 2 + (int) (2 * dragon.getScale()));
+
+        if (--flushTimer <= 0) flush();
+
+        // the offsets an incomplete pass stopped at only make sense around the same spot. If the dragon moved
+        // since, go over the whole disk again
+        boolean resume = incomplete && vec.equals(lastPos) && pos.getY() == lastY && scale == lastScale;
+        boolean full = lastPos == null || incomplete || pos.getY() != lastY || scale != lastScale || (foundWater && --refreshTimer <= 0);
+        if (!full && vec.equals(lastPos)) return; // nothing new to cover
+
+        Budget budget = BUDGETS.computeIfAbsent(world, w -> new Budget());
+        BlockState frost = Blocks.FROSTED_ICE.getDefaultState();
+        BlockPos.Mutable below = new BlockPos.Mutable();
+        BlockPos.Mutable above = new BlockPos.Mutable();
+        boolean water = (!full || resume) && foundWater;
+        int radius = (int) scale;
+        int startX = resume? resumeX : -radius;
+        int startZ = resume? resumeZ : -radius;
+        incomplete = false;
+
+        search:
+        for (int x = startX; x <= radius; x++)
+        {
+            for (int z = x == startX? startZ : -radius; z <= radius; z++)
+            {
+                below.setPos(pos.getX() + x, pos.getY() - 1, pos.getZ() + z);
+                if (!below.withinDistance(vec, scale)) continue;
+                if (!full && below.withinDistance(lastPos, lastScale)) continue; // covered last pass
+
+                if (!budget.take(world))
+                {
+                    incomplete = true;
+                    resumeX = x;
+                    resumeZ = z;
+                    break search;
+                }
+                ++visited;
+
+                above.setPos(below.getX(), below.getY() + 1, below.getZ());
+                if (!world.getBlockState(above).isAir(world, above)) continue;
+
+                BlockState state = world.getBlockState(below);
+                if (state.getBlock() == Blocks.FROSTED_ICE) water = true;
+                else if (state.getBlock() == Blocks.WATER && state.get(FlowingFluidBlock.LEVEL) == 0)
+                {
+                    water = true;
+                    if (world.func_226663_a_(frost, below, ISelectionContext.dummy()))
+                        pending.computeIfAbsent(SectionPos.worldToSection(below.toLong()), k -> new LongOpenHashSet()).add(below.toLong());
+                }
+            }
+        }
+
+        if (full) refreshTimer = REFRESH_INTERVAL;
+        foundWater = water;
+        lastPos = vec;
+        lastY = pos.getY();
+        lastScale = scale;
+    }
+
+    /**
+     * Freezes everything found since the last flush, one chunk section at a time.
+     * The server sends all changes to a section within a tick in one packet, so freezing every few ticks instead of
+     * every tick means fewer, bigger packets. Blocks are set with neighbor updates like vanilla frost walking does.
+     * Also called when the dragon is removed, so nothing it found is left unfrozen.
+     */
+    public void flush()
+    {
+        flushTimer = FLUSH_INTERVAL;
+        if (pending.isEmpty()) return;
+
+        World world = dragon.world;
+        BlockState frost = Blocks.FROSTED_ICE.getDefaultState();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        BlockPos.Mutable above = new BlockPos.Mutable();
+
+        for (Long2ObjectMap.Entry<LongSet> entry : pending.long2ObjectEntrySet())
+        {
+            LongSet positions = entry.getValue();
+            boolean changed = false;
+            for (LongIterator it = positions.iterator(); it.hasNext(); )
+            {
+                long packed = it.nextLong();
+                pos.setPos(BlockPos.unpackX(packed), BlockPos.unpackY(packed), BlockPos.unpackZ(packed));
+                if (!world.isBlockLoaded(pos)) continue; // the dragon may be removed along with its chunk
+                above.setPos(pos.getX(), pos.getY() + 1, pos.getZ());
+
+                // things may have changed since we found it
+                BlockState state = world.getBlockState(pos);
+                if (state.getBlock() != Blocks.WATER || state.get(FlowingFluidBlock.LEVEL) != 0) continue;
+                if (!world.getBlockState(above).isAir(world, above)) continue;
+                if (!world.func_226663_a_(frost, pos, ISelectionContext.dummy())) continue;
+
+                world.setBlockState(pos, frost);
+                world.getPendingBlockTicks().scheduleTick(pos.toImmutable(), Blocks.FROSTED_ICE, MathHelper.nextInt(dragon.getRNG(), 60, 120));
+                changed = true;
+                ++frozen;
+            }
+
+            if (changed) ++sectionUpdates;
+        }
+        pending.clear();
+    }
+
+    /**
+     * Total number of columns looked at by all ice dragons.
+     */
+    public static long getVisited() { return visited; }
+
+    /**
+     * Total number of water blocks frozen by all ice dragons.
+     */
+    public static long getFrozen() { return frozen; }
+
+    /**
+     * Total number of chunk section updates caused by freezing, roughly the number of block change packets sent.
+     */
+    public static long getSectionUpdates() { return sectionUpdates; }
+
+    private static class Budget
+    {
+        private long tick = -1;
+        private int remaining;
+
+        private boolean take(World world)
+        {
+            if (world.getGameTime() != tick)
+            {
+                tick = world.getGameTime();
+                remaining = DMLConfig.COMMON.frostBudget.get();
+            }
+
+            if (remaining <= 0) return false;
+            --remaining;
+            return true;
+        }
+    }
+}
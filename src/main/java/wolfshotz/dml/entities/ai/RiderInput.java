@@ -0,0 +1,239 @@
+package wolfshotz.dml.entities.ai;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraftforge.fml.network.NetworkEvent;
+import wolfshotz.dml.entities.TameableDragonEntity;
+import wolfshotz.dml.util.MathX;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * Quantized flight controls of a dragon rider.
+ * <p>
+ * The controlling client samples its input once per tick and sends it whenever it changed, next to the vanilla
+ * movement packets. Those still move the rider itself (and keep chunks and entities around them tracked), while the
+ * dragon is steered by this input. The server plays it back in the client's tick order through a {@link Buffer},
+ * and the client's own prediction steers with the same quantized values so both sides fly alike.
+ */
+public class RiderInput
+{
+    private static final float STICK_SCALE = 127f;
+    private static final float YAW_SCALE = Short.MAX_VALUE / 180f;
+    private static final float PITCH_SCALE = Short.MAX_VALUE / 90f;
+
+    private final byte strafe, forward;
+    private final short yaw, pitch;
+    private final boolean jumping, sneaking;
+
+    private RiderInput(byte strafe, byte forward, short yaw, short pitch, boolean jumping, boolean sneaking)
+    {
+        this.strafe = strafe;
+        this.forward = forward;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.jumping = jumping;
+        this.sneaking = sneaking;
+    }
+
+    public static RiderInput sample(PlayerEntity rider)
+    {
+        return of(rider.moveStrafing, rider.moveForward, rider.rotationYaw, rider.rotationPitch, rider.isJumping, rider.isSneaking());
+    }
+
+    static RiderInput of(float strafe, float forward, float yaw, float pitch, boolean jumping, boolean sneaking)
+    {
+        return new RiderInput((byte) Math.round(MathHelper.clamp(strafe, -1f, 1f) * STICK_SCALE),
+                (byte) Math.round(MathHelper.clamp(forward, -1f, 1f) * STICK_SCALE),
+                (short) Math.round(MathHelper.clamp(MathHelper.wrapDegrees(yaw), -180f, 180f) * YAW_SCALE),
+                (short) Math.round(MathHelper.clamp(pitch, -90f, 90f) * PITCH_SCALE),
+                jumping,
+                sneaking);
+    }
+
+    /**
+     * Whether the player is the one flying the dragon they ride, and so sends their input through us.
+     */
+    public static boolean isControlling(PlayerEntity player)
+    {
+        Entity vehicle = player.getRidingEntity();
+        return vehicle instanceof TameableDragonEntity && ((TameableDragonEntity) vehicle).getControllingPassenger() == player && ((TameableDragonEntity) vehicle).isOwner(player);
+    }
+
+    /**
+     * Where the input steers a flying dragon at the given position: ten blocks ahead in the direction the rider looks
+     * and pushes the stick, or right where it is if they don't. Same on both sides, see {@link FlightPrediction}.
+     */
+    public Vector3d getMoveTarget(double x, double y, double z)
+    {
+        if (strafe == 0 && forward == 0) return new Vector3d(x, y, z);
+
+        // same as Entity#getVectorForRotation
+        float pitchRad = getPitch() * MathX.PI_F / 180f;
+        float yawRad = -getYaw() * MathX.PI_F / 180f;
+        float cosPitch = MathHelper.cos(pitchRad);
+        Vector3d wp = new Vector3d(MathHelper.sin(yawRad) * cosPitch, -MathHelper.sin(pitchRad), MathHelper.cos(yawRad) * cosPitch);
+
+        if (forward < 0) wp = wp.rotateYaw(MathX.PI_F);
+        else if (strafe > 0) wp = wp.rotateYaw(MathX.PI_F * 0.5f);
+        else if (strafe < 0) wp = wp.rotateYaw(MathX.PI_F * -0.5f);
+
+        return new Vector3d(x + wp.x * 10, y + wp.y * 10, z + wp.z * 10);
+    }
+
+    public float getStrafe() { return strafe / STICK_SCALE; }
+
+    public float getForward() { return forward / STICK_SCALE; }
+
+    public float getYaw() { return yaw / YAW_SCALE; }
+
+    public float getPitch() { return pitch / PITCH_SCALE; }
+
+    public boolean isJumping() { return jumping; }
+
+    public boolean isSneaking() { return sneaking; }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof RiderInput)) return false;
+        RiderInput other = (RiderInput) o;
+        return strafe == other.strafe && forward == other.forward && yaw == other.yaw && pitch == other.pitch && jumping == other.jumping && sneaking == other.sneaking;
+    }
+
+    @Override
+    public int hashCode() { return (((strafe * 31 + forward) * 31 + yaw) * 31 + pitch) * 4 + (jumping? 1 : 0) + (sneaking? 2 : 0); }
+
+    /**
+     * Server side playback of received input. Input is applied when the playhead reaches the client tick it was
+     * sampled on, so the timing between changes is kept even though the client only sends changes.
+     * <p>
+     * Playback runs a little behind the client, so input that takes a bit longer to get here than the input before it
+     * is still applied on its tick. If input does arrive after its tick was played, the playhead falls back to it, so
+     * the following input has that much more room.
+     */
+    public static class Buffer
+    {
+        private static final int MAX_LAG = 10; // ticks the playhead may fall behind the newest input
+        private static final int JITTER = 2; // ticks playback starts behind the first input
+
+        private final ArrayDeque<Packet> pending = new ArrayDeque<>();
+        private RiderInput current;
+        private int lastSequence;
+        private int playhead;
+        private boolean started;
+        // for the received bytes per second
+        private long receivedBytes;
+        private long firstReceived = -1;
+
+        void receive(Packet packet, long gameTime)
+        {
+            if (firstReceived < 0) firstReceived = gameTime;
+            receivedBytes += packet.size;
+
+            // drop anything that arrives out of order
+            if ((started || !pending.isEmpty()) && packet.sequence - lastSequence <= 0) return;
+
+            // too late for its tick, play it on the next one and keep the distance from then on
+            if (started && packet.clientTick - playhead <= 0) playhead = packet.clientTick - 1;
+
+            lastSequence = packet.sequence;
+            pending.add(packet);
+        }
+
+        /**
+         * Average bytes per second received from the rider since they took control.
+         */
+        public long getBytesPerSecond(long gameTime)
+        {
+            return firstReceived < 0? 0 : receivedBytes * 20 / Math.max(20, gameTime - firstReceived);
+        }
+
+        /**
+         * Advances playback by a tick, returning the input to apply, or null if nothing was played yet.
+         */
+        public RiderInput tick()
+        {
+            if (!started)
+            {
+                if (pending.isEmpty()) return null;
+                playhead = pending.peek().clientTick - JITTER;
+                started = true;
+            }
+            else ++playhead;
+
+            // catch up if we fell too far behind the client (server lag, or the client running fast)
+            Packet newest = pending.peekLast();
+            if (newest != null && newest.clientTick - playhead > MAX_LAG) playhead = newest.clientTick - MAX_LAG;
+
+            while (!pending.isEmpty() && pending.peek().clientTick - playhead <= 0) current = pending.poll().input;
+            return current;
+        }
+
+        public void reset()
+        {
+            pending.clear();
+            current = null;
+            started = false;
+            receivedBytes = 0;
+            firstReceived = -1;
+        }
+    }
+
+    public static class Packet
+    {
+        private final int sequence;
+        private final int clientTick;
+        private final RiderInput input;
+        private final int size;
+
+        public Packet(int sequence, int clientTick, RiderInput input)
+        {
+            this.sequence = sequence;
+            this.clientTick = clientTick;
+            this.input = input;
+            this.size = 0;
+        }
+
+        public Packet(PacketBuffer buf)
+        {
+            int start = buf.readerIndex();
+            this.sequence = buf.readVarInt();
+            this.clientTick = buf.readVarInt();
+            byte strafe = buf.readByte(), forward = buf.readByte();
+            short yaw = buf.readShort(), pitch = buf.readShort();
+            byte flags = buf.readByte();
+            this.input = new RiderInput(strafe, forward, yaw, pitch, (flags & 1) != 0, (flags & 2) != 0);
+            this.size = buf.readerIndex() - start;
+        }
+
+        public void encode(PacketBuffer buf)
+        {
+            buf.writeVarInt(sequence);
+            buf.writeVarInt(clientTick);
+            buf.writeByte(input.strafe);
+            buf.writeByte(input.forward);
+            buf.writeShort(input.yaw);
+            buf.writeShort(input.pitch);
+            buf.writeByte((input.jumping? 1 : 0) | (input.sneaking? 2 : 0));
+        }
+
+        public void handle(Supplier<NetworkEvent.Context> context)
+        {
+            context.get().enqueueWork(() ->
+            {
+                ServerPlayerEntity player = context.get().getSender();
+                if (player == null || !isControlling(player)) return;
+
+                ((TameableDragonEntity) player.getRidingEntity()).getRiderInputs().receive(this, player.world.getGameTime());
+            });
+            context.get().setPacketHandled(true);
+        }
+    }
+}
@@ -3,9 +3,6 @@ package wolfshotz.dml.entities.ai.goals;
 import net.minecraft.entity.ai.goal.Goal;
 import wolfshotz.dml.entities.TameableDragonEntity;
 
-import java.util.Comparator;
-import java.util.List;
-
 public class DragonBabuFollowParent extends Goal
 {
     private final TameableDragonEntity babu;
@@ -24,8 +21,9 @@ public class DragonBabuFollowParent extends Goal
     {
         if (!babu.isHatchling() || babu.getOwner() != null) return false;
 
-        List<TameableDragonEntity> list = babu.world.getEntitiesWithinAABB(TameableDragonEntity.class, babu.getBoundingBox().grow(searchDistance, searchDistance * 0.5f, searchDistance), TameableDragonEntity::isAdult);
-        this.adultParent = list.stream().min(Comparator.comparingDouble(babu::getDistanceSq)).orElse(null);
+        // only look half as far up and down
+        this.adultParent = TameableDragonEntity.SPATIAL_INDEX.findNearest(babu.world, babu.getPositionVec(), searchDistance,
+                d -> d.isAdult() && Math.abs(d.getPosY() - babu.getPosY()) <= searchDistance * 0.5f);
         return adultParent != null;
     }
 
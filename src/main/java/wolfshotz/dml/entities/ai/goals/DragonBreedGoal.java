@@ -8,8 +8,6 @@ import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.event.entity.living.BabyEntitySpawnEvent;
 import wolfshotz.dml.entities.TameableDragonEntity;
 
-import java.util.List;
-
 public class DragonBreedGoal extends BreedGoal
 {
     private final TameableDragonEntity dragon;
@@ -43,20 +41,7 @@ public class DragonBreedGoal extends BreedGoal
 
     public TameableDragonEntity getNearbyMate()
     {
-        List<TameableDragonEntity> list = world.getEntitiesWithinAABB(TameableDragonEntity.class, dragon.getBoundingBox().grow(8d));
-        double dist = Double.MAX_VALUE;
-        TameableDragonEntity closest = null;
-
-        for (TameableDragonEntity entity : list)
-        {
-            if (dragon.canMateWith(entity) && dragon.getDistanceSq(entity) < dist)
-            {
-                closest = entity;
-                dist = dragon.getDistanceSq(entity);
-            }
-        }
-
-        return closest;
+        return TameableDragonEntity.SPATIAL_INDEX.findNearest(world, dragon.getPositionVec(), 8d, dragon::canMateWith);
     }
 
     @Override
@@ -4,14 +4,16 @@ import net.minecraft.entity.ai.attributes.Attributes;
 import net.minecraft.entity.ai.goal.Goal;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
-import net.minecraft.world.gen.Heightmap;
 import wolfshotz.dml.entities.TameableDragonEntity;
+import wolfshotz.dml.util.LandingSiteIndex;
 
 import java.util.EnumSet;
 import java.util.Random;
 
 public class DragonLandGoal extends Goal
 {
+    private static final int SEARCH_RADIUS = 8; // how far from the random spot we look for somewhere to land
+
     private final TameableDragonEntity dragon;
     private BlockPos landingPos;
 
@@ -51,18 +53,16 @@ public class DragonLandGoal extends Goal
     {
         Random rand = dragon.getRNG();
         // get current entity position
-        landingPos = dragon.getPosition();
+        BlockPos pos = dragon.getPosition();
 
         // add some variance
         int followRange = MathHelper.floor(dragon.getAttribute(Attributes.FOLLOW_RANGE).getValue());
         int ox = followRange - rand.nextInt(followRange) * 2;
         int oz = followRange - rand.nextInt(followRange) * 2;
-        landingPos = landingPos.add(ox, 0, oz);
-
-        // get ground block
-        landingPos = dragon.world.getHeight(Heightmap.Type.WORLD_SURFACE, landingPos);
+        pos = pos.add(ox, 0, oz);
 
-        // make sure the block below is solid
-        return dragon.world.getBlockState(landingPos.down()).getMaterial().isSolid();
+        // closest ground with a solid surface block around there
+        landingPos = LandingSiteIndex.findNearest(dragon.world, pos, SEARCH_RADIUS);
+        return landingPos != null;
     }
 }
@@ -6,6 +6,7 @@ import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.particles.RedstoneParticleData;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
@@ -16,10 +17,11 @@ import net.minecraftforge.eventbus.api.Event;
 import org.apache.commons.lang3.tuple.Pair;
 import wolfshotz.dml.DMLRegistry;
 import wolfshotz.dml.entities.DragonEggEntity;
+import wolfshotz.dml.entities.HabitatScan;
 import wolfshotz.dml.entities.TameableDragonEntity;
 
 import java.util.function.Supplier;
-import java.util.function.ToIntFunction;
+import java.util.function.ToIntBiFunction;
 
 /**
  * OG Dragon Mounts used meta-data to differentiate between the different egg breed types
@@ -30,11 +32,12 @@ public class DragonEggBlock extends net.minecraft.block.DragonEggBlock
     private static ImmutableMap<EntityType<?>, Block> LOOK_UP;
 
     public final Supplier<EntityType<? extends TameableDragonEntity>> breed;
-    private final ToIntFunction<DragonEggEntity> habitatFunc;
+    private final ToIntBiFunction<DragonEggEntity, HabitatScan> habitatFunc;
     private final int primColor;
     private final int secColor;
+    private RedstoneParticleData[] dust;
 
-    public DragonEggBlock(Supplier<EntityType<? extends TameableDragonEntity>> breed, ToIntFunction<DragonEggEntity> habitatPoints, int primColor, int secColor)
+    public DragonEggBlock(Supplier<EntityType<? extends TameableDragonEntity>> breed, ToIntBiFunction<DragonEggEntity, HabitatScan> habitatPoints, int primColor, int secColor)
     {
         super(Block.Properties.from(Blocks.DRAGON_EGG).hardnessAndResistance(1, 9));
         this.habitatFunc = habitatPoints;
@@ -56,7 +59,7 @@ public class DragonEggBlock extends net.minecraft.block.DragonEggBlock
         return ActionResultType.SUCCESS;
     }
 
-    public int getHabitatPoints(DragonEggEntity egg) { return habitatFunc.applyAsInt(egg); }
+    public int getHabitatPoints(DragonEggEntity egg, HabitatScan scan) { return habitatFunc.applyAsInt(egg, scan); }
 
     public Pair<Integer, Integer> getColors() { return Pair.of(primColor, secColor); }
 
@@ -78,6 +81,18 @@ public class DragonEggBlock extends net.minecraft.block.DragonEggBlock
         return (color & 0xFF) / 255f;
     }
 
+    /**
+     * Dust particles in the primary or secondary color of this breed, created once.
+     */
+    public RedstoneParticleData getDustParticle(boolean primary)
+    {
+        if (dust == null) dust = new RedstoneParticleData[] {
+                new RedstoneParticleData(getColorR(true), getColorG(true), getColorB(true), 1),
+                new RedstoneParticleData(getColorR(false), getColorG(false), getColorB(false), 1)
+        };
+        return dust[primary? 0 : 1];
+    }
+
     public static void startHatching(Block block, World world, BlockPos pos)
     {
         if (!world.isRemote)
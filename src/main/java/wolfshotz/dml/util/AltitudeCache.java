@@ -0,0 +1,113 @@
+package wolfshotz.dml.util;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.ChunkEvent;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Per-chunk column cache of the first solid block below a position.
+ * <p>
+ * For every column we remember the solid "floor" and the highest y we've scanned down from.
+ * Anything between those two is known to be non-solid, so a dragon flying in that range gets its altitude without
+ * touching a single block state. Climbing above the scanned range only scans the new blocks.
+ * Columns are dropped when {@link BlockChangeTracker} reports a change in the chunk.
+ */
+public class AltitudeCache
+{
+    private static final int UNKNOWN = Integer.MIN_VALUE;
+    private static final int CLIENT_EXPIRY = 20; // client doesn't get block change notifications, so refresh every second
+
+    private static final Map<IWorld, Long2ObjectOpenHashMap<Columns>> WORLDS = new MapMaker().weakKeys().makeMap();
+
+    private AltitudeCache() {}
+
+    /**
+     * Returns the distance from the entity's position to the first solid block below it.
+     */
+    public static double getAltitude(Entity entity)
+    {
+        BlockPos pos = entity.getPosition();
+        return entity.getPosY() - getFloor(entity.world, pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * Returns the y of the first solid block at or below the given position, or 0 if there is none.
+     */
+    public static int getFloor(World world, int x, int y, int z)
+    {
+        if (y <= 0) return y;
+
+        Columns columns = getColumns(world, x >> 4, z >> 4);
+        int i = (z & 15) << 4 | (x & 15);
+        int floor = columns.floor[i];
+        int top = columns.top[i];
+
+        if (top != UNKNOWN && y >= floor)
+        {
+            // everything between the floor and the top is known to be air
+            if (y <= top) return floor;
+
+            // only look at what we haven't seen yet
+            int found = scan(world, x, y, z, top + 1);
+            if (found != UNKNOWN) columns.floor[i] = found;
+            columns.top[i] = y;
+            return columns.floor[i];
+        }
+
+        int found = scan(world, x, y, z, 1);
+        columns.floor[i] = found == UNKNOWN? 0 : found;
+        columns.top[i] = y;
+        return columns.floor[i];
+    }
+
+    private static int scan(World world, int x, int from, int z, int to)
+    {
+        BlockPos.Mutable pos = new BlockPos.Mutable(x, from, z);
+        for (; pos.getY() >= to; pos.move(0, -1, 0))
+            if (world.getBlockState(pos).getMaterial().isSolid()) return pos.getY();
+        return UNKNOWN;
+    }
+
+    private static Columns getColumns(World world, int chunkX, int chunkZ)
+    {
+        Long2ObjectOpenHashMap<Columns> chunks = WORLDS.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>());
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        long stamp = BlockChangeTracker.getChunkStamp(world, chunkX, chunkZ);
+        Columns columns = chunks.get(key);
+
+        if (columns == null) chunks.put(key, columns = new Columns());
+        else if (columns.stamp == stamp && (!world.isRemote || world.getGameTime() < columns.expires)) return columns;
+
+        columns.reset(stamp, world.getGameTime() + CLIENT_EXPIRY);
+        return columns;
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload evt)
+    {
+        Long2ObjectOpenHashMap<Columns> chunks = WORLDS.get(evt.getWorld());
+        if (chunks != null) chunks.remove(evt.getChunk().getPos().asLong());
+    }
+
+    private static class Columns
+    {
+        private final int[] floor = new int[256];
+        private final int[] top = new int[256];
+        private long stamp;
+        private long expires;
+
+        private void reset(long stamp, long expires)
+        {
+            Arrays.fill(top, UNKNOWN);
+            this.stamp = stamp;
+            this.expires = expires;
+        }
+    }
+}
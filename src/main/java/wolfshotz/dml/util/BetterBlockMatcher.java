@@ -2,13 +2,20 @@ package wolfshotz.dml.util;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.tags.ITag;
+import net.minecraft.util.registry.Registry;
 
-import java.util.*;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.function.Predicate;
 
+/**
+ * Set of blocks, stored as a bitset over the block registry ids.
+ * Tags are copied in when added, so matchers built from tags have to be rebuilt when tags reload.
+ */
 public class BetterBlockMatcher implements Predicate<Block>
 {
-    private final Set<Block> blocks = new HashSet<>();
+    private final BitSet blocks = new BitSet(Registry.BLOCK.keySet().size());
 
     public BetterBlockMatcher(Block... blocks)
     {
@@ -22,20 +29,25 @@ public class BetterBlockMatcher implements Predicate<Block>
 
     public BetterBlockMatcher add(Block... additional)
     {
-        Collections.addAll(blocks, additional);
+        for (Block block : additional) blocks.set(Registry.BLOCK.getId(block));
         return this;
     }
 
     public BetterBlockMatcher add(Collection<Block> additional)
     {
-        blocks.addAll(additional);
+        for (Block block : additional) blocks.set(Registry.BLOCK.getId(block));
         return this;
     }
 
+    public BetterBlockMatcher add(ITag<Block> tag)
+    {
+        return add(tag.getAllElements());
+    }
+
     @Override
     public boolean test(Block block)
     {
-        return blocks.contains(block);
+        return blocks.get(Registry.BLOCK.getId(block));
     }
 
     public boolean test(BlockState state)
@@ -0,0 +1,114 @@
+package wolfshotz.dml.util;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.IWorld;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a modification stamp for every chunk and chunk section that had a block change.
+ * Caches store the stamp they were built against, and simply compare it on lookup to know if they went stale.
+ * <p>
+ * Stamps come from a per-world counter, so a stamp never repeats even after a chunk was unloaded and its entry dropped.
+ * Only the logical server gets block change notifications, client-side caches have to expire on their own.
+ * <p>
+ * Besides stamps, listeners can be registered per section to be told about changes as they happen.
+ */
+public class BlockChangeTracker
+{
+    private static final Map<IWorld, Stamps> WORLDS = new MapMaker().weakKeys().makeMap();
+
+    private BlockChangeTracker() {}
+
+    public static long getChunkStamp(IWorld world, int chunkX, int chunkZ)
+    {
+        Stamps stamps = WORLDS.get(world);
+        return stamps == null? 0 : stamps.chunks.get(ChunkPos.asLong(chunkX, chunkZ));
+    }
+
+    public static long getSectionStamp(IWorld world, int sectionX, int sectionY, int sectionZ)
+    {
+        Stamps stamps = WORLDS.get(world);
+        return stamps == null? 0 : stamps.sections.get(SectionPos.asLong(sectionX, sectionY, sectionZ));
+    }
+
+    /**
+     * Marks the section (and chunk) containing the given position as changed.
+     * Block changes that don't notify neighbors have to be reported through this manually.
+     */
+    public static void markChanged(IWorld world, BlockPos pos)
+    {
+        mark(world, pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4, pos);
+    }
+
+    private static void mark(IWorld world, int sx, int sy, int sz, @Nullable BlockPos pos)
+    {
+        Stamps stamps = WORLDS.computeIfAbsent(world, w -> new Stamps());
+        long stamp = ++stamps.counter;
+        long section = SectionPos.asLong(sx, sy, sz);
+        stamps.chunks.put(ChunkPos.asLong(sx, sz), stamp);
+        stamps.sections.put(section, stamp);
+
+        List<Listener> listeners = stamps.listeners.get(section);
+        if (listeners != null) for (int i = 0; i < listeners.size(); i++) listeners.get(i).onBlockChanged(pos);
+    }
+
+    /**
+     * Registers a listener for block changes in the given section. Listeners aren't dropped on chunk unloads,
+     * whoever registers one has to remove it again.
+     */
+    public static void addListener(IWorld world, long section, Listener listener)
+    {
+        WORLDS.computeIfAbsent(world, w -> new Stamps()).listeners.computeIfAbsent(section, k -> new ArrayList<>()).add(listener);
+    }
+
+    public static void removeListener(IWorld world, long section, Listener listener)
+    {
+        Stamps stamps = WORLDS.get(world);
+        if (stamps == null) return;
+
+        List<Listener> listeners = stamps.listeners.get(section);
+        if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) stamps.listeners.remove(section);
+    }
+
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent evt)
+    {
+        markChanged(evt.getWorld(), evt.getPos());
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload evt)
+    {
+        Stamps stamps = WORLDS.get(evt.getWorld());
+        if (stamps == null) return;
+
+        ChunkPos pos = evt.getChunk().getPos();
+        stamps.chunks.remove(pos.asLong());
+        for (int y = 0; y < 16; y++) stamps.sections.remove(SectionPos.asLong(pos.x, y, pos.z));
+    }
+
+    public interface Listener
+    {
+        /**
+         * @param pos the position that changed, or null if any block of the section may have changed
+         */
+        void onBlockChanged(@Nullable BlockPos pos);
+    }
+
+    private static class Stamps
+    {
+        private final Long2LongOpenHashMap chunks = new Long2LongOpenHashMap();
+        private final Long2LongOpenHashMap sections = new Long2LongOpenHashMap();
+        private final Long2ObjectOpenHashMap<List<Listener>> listeners = new Long2ObjectOpenHashMap<>();
+        private long counter;
+    }
+}
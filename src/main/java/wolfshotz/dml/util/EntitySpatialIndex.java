@@ -0,0 +1,142 @@
+package wolfshotz.dml.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Per-world spatial hash of a kind of entity, bucketed by chunk section.
+ * <p>
+ * Entities have to be {@link #add added} and {@link #remove removed} as they join and leave their world,
+ * and {@link #update updated} every tick they may have moved. Updating only touches the buckets when the entity
+ * crossed into another section. Lookups then only look at the buckets overlapping the search radius,
+ * instead of scanning every entity in the chunks around.
+ */
+public class EntitySpatialIndex<T extends Entity>
+{
+    private final Map<World, Cells<T>> worlds = new MapMaker().weakKeys().makeMap();
+
+    public void add(T entity)
+    {
+        Cells<T> cells = worlds.computeIfAbsent(entity.world, w -> new Cells<>());
+        long key = key(entity.getPosX(), entity.getPosY(), entity.getPosZ());
+        if (cells.keys.containsKey(entity)) cells.move(entity, key);
+        else cells.put(entity, key);
+    }
+
+    public void remove(T entity)
+    {
+        Cells<T> cells = worlds.get(entity.world);
+        if (cells != null) cells.remove(entity);
+    }
+
+    public void update(T entity)
+    {
+        Cells<T> cells = worlds.get(entity.world);
+        if (cells == null || !cells.keys.containsKey(entity)) return;
+
+        long key = key(entity.getPosX(), entity.getPosY(), entity.getPosZ());
+        if (cells.keys.getLong(entity) != key) cells.move(entity, key);
+    }
+
+    /**
+     * Returns all entities within the radius of the position that match the filter, in no particular order.
+     */
+    public List<T> findWithin(World world, Vector3d pos, double radius, Predicate<? super T> filter)
+    {
+        List<T> found = Lists.newArrayList();
+        Cells<T> cells = worlds.get(world);
+        if (cells == null) return found;
+
+        double radiusSq = radius * radius;
+        int minX = floorSection(pos.x - radius), maxX = floorSection(pos.x + radius);
+        int minY = floorSection(pos.y - radius), maxY = floorSection(pos.y + radius);
+        int minZ = floorSection(pos.z - radius), maxZ = floorSection(pos.z + radius);
+        for (int x = minX; x <= maxX; x++)
+            for (int y = minY; y <= maxY; y++)
+                for (int z = minZ; z <= maxZ; z++)
+                {
+                    List<T> bucket = cells.buckets.get(SectionPos.asLong(x, y, z));
+                    if (bucket == null) continue;
+
+                    for (T entity : bucket)
+                        if (entity.getDistanceSq(pos) <= radiusSq && filter.test(entity)) found.add(entity);
+                }
+
+        return found;
+    }
+
+    /**
+     * Returns up to {@code count} entities within the radius of the position that match the filter, closest first.
+     */
+    public List<T> findNearest(World world, Vector3d pos, double radius, int count, Predicate<? super T> filter)
+    {
+        List<T> found = findWithin(world, pos, radius, filter);
+        found.sort(Comparator.comparingDouble(e -> e.getDistanceSq(pos)));
+        return found.size() > count? found.subList(0, count) : found;
+    }
+
+    /**
+     * Returns the closest entity within the radius of the position that matches the filter, if any.
+     */
+    @Nullable
+    public T findNearest(World world, Vector3d pos, double radius, Predicate<? super T> filter)
+    {
+        T closest = null;
+        double closestDist = Double.MAX_VALUE;
+        for (T entity : findWithin(world, pos, radius, filter))
+        {
+            double dist = entity.getDistanceSq(pos);
+            if (dist < closestDist)
+            {
+                closest = entity;
+                closestDist = dist;
+            }
+        }
+
+        return closest;
+    }
+
+    private static long key(double x, double y, double z) { return SectionPos.asLong(floorSection(x), floorSection(y), floorSection(z)); }
+
+    private static int floorSection(double coord) { return SectionPos.toChunk((int) Math.floor(coord)); }
+
+    private static class Cells<T>
+    {
+        private final Long2ObjectOpenHashMap<List<T>> buckets = new Long2ObjectOpenHashMap<>();
+        private final Object2LongOpenHashMap<T> keys = new Object2LongOpenHashMap<>();
+
+        private void put(T entity, long key)
+        {
+            keys.put(entity, key);
+            buckets.computeIfAbsent(key, k -> Lists.newArrayListWithCapacity(2)).add(entity);
+        }
+
+        private void remove(T entity)
+        {
+            if (!keys.containsKey(entity)) return;
+
+            long key = keys.removeLong(entity);
+            List<T> bucket = buckets.get(key);
+            bucket.remove(entity);
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+
+        private void move(T entity, long key)
+        {
+            remove(entity);
+            put(entity, key);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package wolfshotz.dml.util;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraftforge.event.world.ChunkEvent;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Per-chunk index of columns a dragon can land on: the surface block of the column is solid.
+ * <p>
+ * Chunks are indexed lazily from their {@link Heightmap.Type#WORLD_SURFACE} heightmap the first time they're queried,
+ * and rebuilt when {@link BlockChangeTracker} reports a change in them.
+ * Only meant to be used on the logical server, the client never invalidates its entries.
+ */
+public class LandingSiteIndex
+{
+    private static final Map<IWorld, Long2ObjectOpenHashMap<Sites>> WORLDS = new MapMaker().weakKeys().makeMap();
+
+    private static long hits, misses, builds;
+
+    private LandingSiteIndex() {}
+
+    /**
+     * Returns the landing site closest to the given position within the radius,
+     * or null if there's none in the loaded chunks around it.
+     */
+    @Nullable
+    public static BlockPos findNearest(World world, BlockPos pos, int radius)
+    {
+        Sites best = null;
+        int bestIndex = 0;
+        long bestDist = (long) radius * radius;
+
+        for (int cx = (pos.getX() - radius) >> 4; cx <= (pos.getX() + radius) >> 4; cx++)
+        {
+            for (int cz = (pos.getZ() - radius) >> 4; cz <= (pos.getZ() + radius) >> 4; cz++)
+            {
+                Sites sites = getSites(world, cx, cz);
+                if (sites == null) continue;
+
+                for (int word = 0; word < 4; word++)
+                {
+                    for (long bits = sites.valid[word]; bits != 0; bits &= bits - 1)
+                    {
+                        int i = word << 6 | Long.numberOfTrailingZeros(bits);
+                        long dx = (cx << 4 | i & 15) - pos.getX();
+                        long dz = (cz << 4 | i >> 4) - pos.getZ();
+                        long dist = dx * dx + dz * dz;
+                        if (dist > bestDist || (best != null && dist == bestDist)) continue;
+
+                        best = sites;
+                        bestIndex = i;
+                        bestDist = dist;
+                    }
+                }
+            }
+        }
+
+        if (best == null)
+        {
+            ++misses;
+            return null;
+        }
+
+        ++hits;
+        return new BlockPos(best.pos.getXStart() | bestIndex & 15, best.surface[bestIndex], best.pos.getZStart() | bestIndex >> 4);
+    }
+
+    @Nullable
+    private static Sites getSites(World world, int chunkX, int chunkZ)
+    {
+        Long2ObjectOpenHashMap<Sites> chunks = WORLDS.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>());
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        long stamp = BlockChangeTracker.getChunkStamp(world, chunkX, chunkZ);
+        Sites sites = chunks.get(key);
+        if (sites != null && sites.stamp == stamp) return sites;
+
+        IChunk chunk = world.getChunkProvider().getChunk(chunkX, chunkZ, false);
+        if (chunk == null) return null;
+
+        if (sites == null) chunks.put(key, sites = new Sites(chunk.getPos()));
+        sites.build(chunk, stamp);
+        ++builds;
+        return sites;
+    }
+
+    public static long getHits() { return hits; }
+
+    public static long getMisses() { return misses; }
+
+    public static long getBuilds() { return builds; }
+
+    public static void onChunkUnload(ChunkEvent.Unload evt)
+    {
+        Long2ObjectOpenHashMap<Sites> chunks = WORLDS.get(evt.getWorld());
+        if (chunks != null) chunks.remove(evt.getChunk().getPos().asLong());
+    }
+
+    private static class Sites
+    {
+        private final ChunkPos pos;
+        private final long[] valid = new long[4]; // one bit per column, indexed z << 4 | x
+        private final int[] surface = new int[256];
+        private long stamp;
+
+        private Sites(ChunkPos pos) { this.pos = pos; }
+
+        private void build(IChunk chunk, long stamp)
+        {
+            BlockPos.Mutable below = new BlockPos.Mutable();
+            for (int i = 0; i < 256; i++)
+            {
+                int x = pos.getXStart() | i & 15;
+                int z = pos.getZStart() | i >> 4;
+                int y = chunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE, x, z) + 1;
+                surface[i] = y;
+
+                long bit = 1L << (i & 63);
+                if (chunk.getBlockState(below.setPos(x, y - 1, z)).getMaterial().isSolid()) valid[i >> 6] |= bit;
+                else valid[i >> 6] &= ~bit;
+            }
+            this.stamp = stamp;
+        }
+    }
+}
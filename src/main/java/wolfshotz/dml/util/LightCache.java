@@ -0,0 +1,130 @@
+package wolfshotz.dml.util;
+
+import com.google.common.collect.MapMaker;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.LightType;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.NibbleArray;
+import net.minecraftforge.event.world.ChunkEvent;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Per-chunk section view of the sky and block light levels, for habitat checks.
+ * <p>
+ * The light storage never writes to a light array it has handed out: the first change to a section in a light update
+ * goes to a fresh copy, which replaces the old array once the update is done. So the arrays are kept as they are,
+ * without copying them, and a section is only looked up again when the light engine has published new light for it
+ * (checked once per tick, so all eggs checked in a tick share the lookup). Reading never makes the light engine do any
+ * work. The time of day isn't part of the light data, it's applied when reading.
+ */
+public class LightCache
+{
+    private static final Map<IWorld, Long2ObjectOpenHashMap<Section>> WORLDS = new MapMaker().weakKeys().makeMap();
+
+    private LightCache() {}
+
+    /**
+     * Same as {@link World#getLight}: the light level at the position, with the sky dimmed by the time of day.
+     */
+    public static int getLight(World world, BlockPos pos)
+    {
+        Section section = getSection(world, pos);
+        int sky = section.get(world, LightType.SKY, pos) - world.getSkylightSubtracted();
+        return Math.max(sky, section.get(world, LightType.BLOCK, pos));
+    }
+
+    /**
+     * Same as {@link World#canBlockSeeSky}: whether nothing above the position blocks sky light. Below sea level, the
+     * sky has to be visible at sea level, and only opaque blocks that aren't liquids count in between, so water above
+     * doesn't hide the sky.
+     */
+    public static boolean canSeeSky(World world, BlockPos pos)
+    {
+        int seaLevel = world.getSeaLevel();
+        if (pos.getY() >= seaLevel) return getSkyLight(world, pos) >= world.getMaxLightLevel();
+
+        BlockPos.Mutable check = new BlockPos.Mutable(pos.getX(), seaLevel, pos.getZ());
+        if (getSkyLight(world, check) < world.getMaxLightLevel()) return false;
+
+        for (check.move(Direction.DOWN); check.getY() > pos.getY(); check.move(Direction.DOWN))
+        {
+            BlockState state = world.getBlockState(check);
+            if (state.getOpacity(world, check) > 0 && !state.getMaterial().isLiquid()) return false;
+        }
+        return true;
+    }
+
+    private static int getSkyLight(World world, BlockPos pos)
+    {
+        return getSection(world, pos).get(world, LightType.SKY, pos);
+    }
+
+    private static Section getSection(World world, BlockPos pos)
+    {
+        Long2ObjectOpenHashMap<Section> sections = WORLDS.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>());
+        SectionPos sectionPos = SectionPos.from(pos);
+        long key = sectionPos.asLong();
+        long time = world.getGameTime();
+        Section section = sections.get(key);
+
+        if (section == null) sections.put(key, section = new Section(world, sectionPos, time));
+        else if (section.checked != time)
+        {
+            if (section.isCurrent(world, sectionPos)) section.checked = time;
+            else sections.put(key, section = new Section(world, sectionPos, time));
+        }
+        return section;
+    }
+
+    public static void onChunkUnload(ChunkEvent.Unload evt)
+    {
+        Long2ObjectOpenHashMap<Section> sections = WORLDS.get(evt.getWorld());
+        if (sections == null) return;
+
+        ChunkPos pos = evt.getChunk().getPos();
+        for (int y = 0; y < 16; y++) sections.remove(SectionPos.asLong(pos.x, y, pos.z));
+    }
+
+    private static class Section
+    {
+        @Nullable private final NibbleArray sky;
+        @Nullable private final NibbleArray block;
+        private long checked; // game time the arrays were last found to be current
+
+        private Section(World world, SectionPos pos, long time)
+        {
+            this.sky = getData(world, LightType.SKY, pos);
+            this.block = getData(world, LightType.BLOCK, pos);
+            this.checked = time;
+        }
+
+        // light updates replace the arrays, so the same arrays mean the same light
+        private boolean isCurrent(World world, SectionPos pos)
+        {
+            return getData(world, LightType.SKY, pos) == sky && getData(world, LightType.BLOCK, pos) == block;
+        }
+
+        private int get(World world, LightType type, BlockPos pos)
+        {
+            NibbleArray data = type == LightType.SKY? sky : block;
+
+            // sections without light data of their own (e.g. empty ones) take it from around them
+            if (data == null) return world.getLightFor(type, pos);
+            return data.get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+        }
+
+        @Nullable
+        private static NibbleArray getData(World world, LightType type, SectionPos pos)
+        {
+            return world.getLightManager().getLightEngine(type).getData(pos);
+        }
+    }
+}
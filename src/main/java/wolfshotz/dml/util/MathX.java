@@ -16,6 +16,19 @@ public class MathX
             {0.0f, 1.0f, 0.0f, 0.0f}
     };
 
+    // sine table over a full turn, with one extra entry so interpolation never has to wrap
+    private static final int SIN_SIZE = 4096;
+    private static final int SIN_MASK = SIN_SIZE - 1;
+    private static final double SIN_SCALE = SIN_SIZE / (PI_D * 2);
+    private static final float[] SIN_TABLE = new float[SIN_SIZE + 1];
+
+    private static boolean fastTrig;
+
+    static
+    {
+        for (int i = 0; i <= SIN_SIZE; i++) SIN_TABLE[i] = (float) Math.sin(i * PI_D * 2 / SIN_SIZE);
+    }
+
     /**
      * You no take constructor!
      */
@@ -23,16 +36,40 @@ public class MathX
     {
     }
 
+    /**
+     * Switches {@link #sin}, {@link #cos} and {@link #atan2} between {@link Math} and the faster approximations:
+     * <ul>
+     *     <li>sin/cos: a 4096 entry table with linear interpolation, at most 4e-7 off</li>
+     *     <li>atan2: a polynomial, at most 2.5e-6 radians off</li>
+     * </ul>
+     * Meant to be set once at startup.
+     */
+    public static void setFastTrig(boolean fast)
+    {
+        fastTrig = fast;
+    }
+
     // float sine function, may use LUT
     public static float sin(float a)
     {
-        return (float) Math.sin(a);
+        return fastTrig? lookUpSin(a * SIN_SCALE) : (float) Math.sin(a);
     }
 
     // float cosine function, may use LUT
     public static float cos(float a)
     {
-        return (float) Math.cos(a);
+        // a quarter turn ahead of sine
+        return fastTrig? lookUpSin(a * SIN_SCALE + SIN_SIZE / 4) : (float) Math.cos(a);
+    }
+
+    // x is in table steps. In double, so the steps of large angles are as precise as those of small ones
+    private static float lookUpSin(double x)
+    {
+        int i = (int) x;
+        if (x < i) --i; // floor for negative angles
+        float frac = (float) (x - i);
+        i &= SIN_MASK;
+        return SIN_TABLE[i] + (SIN_TABLE[i + 1] - SIN_TABLE[i]) * frac;
     }
 
     // float tangent function
@@ -44,7 +81,19 @@ public class MathX
     // float atan2 function
     public static float atan2(float y, float x)
     {
-        return (float) Math.atan2(y, x);
+        if (!fastTrig) return (float) Math.atan2(y, x);
+
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        if (ax == 0 && ay == 0) return (float) Math.atan2(y, x); // signed zeros
+
+        // atan over 0..1, then mirrored into the right octant
+        float z = Math.min(ax, ay) / Math.max(ax, ay);
+        float z2 = z * z;
+        float r = z * (0.99997726f + z2 * (-0.33262347f + z2 * (0.19354346f + z2 * (-0.11643287f + z2 * (0.05265332f + z2 * -0.01172120f)))));
+        if (ay > ax) r = PI_F / 2 - r;
+        if (x < 0) r = PI_F - r;
+        return Math.copySign(r, y);
     }
 
     // float degrees to radians conversion
@@ -0,0 +1,137 @@
+package wolfshotz.dml.entities;
+
+import net.minecraft.util.RegistryKey;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraft.util.registry.WorldGenRegistries;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.Biomes;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class HabitatBiomesTest
+{
+    @BeforeAll
+    static void bootstrap()
+    {
+        Bootstrap.register();
+    }
+
+    static Stream<Arguments> biomes()
+    {
+        return Stream.of(
+                // end dragons
+                Arguments.of(Biomes.THE_END, HabitatBiomes.Group.END),
+                Arguments.of(Biomes.END_HIGHLANDS, HabitatBiomes.Group.END),
+                Arguments.of(Biomes.END_MIDLANDS, HabitatBiomes.Group.END),
+                Arguments.of(Biomes.END_BARRENS, HabitatBiomes.Group.END),
+                Arguments.of(Biomes.SMALL_END_ISLANDS, HabitatBiomes.Group.END),
+                // nether dragons
+                Arguments.of(Biomes.NETHER_WASTES, HabitatBiomes.Group.NETHER),
+                Arguments.of(Biomes.CRIMSON_FOREST, HabitatBiomes.Group.NETHER),
+                Arguments.of(Biomes.WARPED_FOREST, HabitatBiomes.Group.NETHER),
+                Arguments.of(Biomes.BASALT_DELTAS, HabitatBiomes.Group.NETHER),
+                Arguments.of(Biomes.SOUL_SAND_VALLEY, HabitatBiomes.Group.NETHER),
+                // water dragons
+                Arguments.of(Biomes.OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.DEEP_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.COLD_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.DEEP_COLD_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.FROZEN_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.DEEP_FROZEN_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.LUKEWARM_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.DEEP_LUKEWARM_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.WARM_OCEAN, HabitatBiomes.Group.OCEAN),
+                Arguments.of(Biomes.DEEP_WARM_OCEAN, HabitatBiomes.Group.OCEAN),
+                // none of them. the end group used to match everything but the end
+                Arguments.of(Biomes.PLAINS, null),
+                Arguments.of(Biomes.FOREST, null),
+                Arguments.of(Biomes.DESERT, null),
+                Arguments.of(Biomes.RIVER, null),
+                Arguments.of(Biomes.BEACH, null),
+                Arguments.of(Biomes.THE_VOID, null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("biomes")
+    void classify(RegistryKey<Biome> key, @Nullable HabitatBiomes.Group expected)
+    {
+        HabitatBiomes.Cache cache = new HabitatBiomes.Cache();
+        Biome biome = biome(key);
+        byte groups = cache.classify(biome, HabitatBiomesTest::lookUp);
+        for (HabitatBiomes.Group group : HabitatBiomes.Group.values())
+            assertEquals(group == expected, HabitatBiomes.test(groups, group), key + " in " + group);
+
+        // the key is only looked up the first time the biome is seen
+        assertEquals(groups, cache.classify(biome, b -> { throw new AssertionError("looked up " + key + " again"); }));
+    }
+
+    @Test
+    void unregisteredBiome()
+    {
+        // e.g. a biome from a datapack that was removed since
+        assertEquals(0, new HabitatBiomes.Cache().classify(biome(Biomes.THE_END), b -> Optional.empty()));
+    }
+
+    static Stream<Arguments> scores()
+    {
+        return Stream.of(
+                // biome, blocks around the egg, egg in water, then the end, nether and water dragon points
+                Arguments.of(Biomes.THE_END, 0, false, 2, 0, 0),
+                Arguments.of(Biomes.END_HIGHLANDS, 3, false, 5, 3, 3),
+                Arguments.of(Biomes.SMALL_END_ISLANDS, 1, false, 3, 1, 1),
+                // used to give end dragons 2 outside the end, and nothing in it
+                Arguments.of(Biomes.PLAINS, 0, false, 0, 0, 0),
+                Arguments.of(Biomes.DESERT, 2, false, 2, 2, 2),
+                // the nether and ocean biomes never matched
+                Arguments.of(Biomes.NETHER_WASTES, 0, false, 0, 2, 0),
+                Arguments.of(Biomes.BASALT_DELTAS, 4, false, 4, 6, 4),
+                Arguments.of(Biomes.OCEAN, 0, false, 0, 0, 2),
+                Arguments.of(Biomes.DEEP_FROZEN_OCEAN, 5, true, 5, 5, 8),
+                Arguments.of(Biomes.RIVER, 5, true, 5, 5, 6)
+        );
+    }
+
+    /**
+     * Each breed's points with the biome classified through the cache. The block count stands in for each breed's
+     * own blocks (end stone, netherrack or water) around the egg.
+     */
+    @ParameterizedTest
+    @MethodSource("scores")
+    void breedPoints(RegistryKey<Biome> key, int blocks, boolean inWater, int end, int nether, int water)
+    {
+        byte groups = new HabitatBiomes.Cache().classify(biome(key), HabitatBiomesTest::lookUp);
+
+        assertEquals(end, EndDragonEntity.getHabitatPoints(blocks, HabitatBiomes.test(groups, HabitatBiomes.Group.END)), "end dragon in " + key);
+        assertEquals(nether, NetherDragonEntity.getHabitatPoints(blocks, HabitatBiomes.test(groups, HabitatBiomes.Group.NETHER)), "nether dragon in " + key);
+        assertEquals(water, WaterDragonEntity.getHabitatPoints(blocks, inWater, HabitatBiomes.test(groups, HabitatBiomes.Group.OCEAN)), "water dragon in " + key);
+    }
+
+    // the biome instance the world has for the key
+    private static Biome biome(RegistryKey<Biome> key)
+    {
+        Biome biome = WorldGenRegistries.field_243657_i.getValueForKey(key);
+        assertNotNull(biome, key.toString());
+        return biome;
+    }
+
+    // what World#func_242406_i does, over the biomes of the table
+    @SuppressWarnings("unchecked")
+    private static Optional<RegistryKey<Biome>> lookUp(Biome biome)
+    {
+        return biomes()
+                .map(args -> (RegistryKey<Biome>) args.get()[0])
+                .filter(key -> WorldGenRegistries.field_243657_i.getValueForKey(key) == biome)
+                .findFirst();
+    }
+}
@@ -0,0 +1,137 @@
+package wolfshotz.dml.entities;
+
+import net.minecraft.nbt.CompoundNBT;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncubationManagerTest
+{
+    private static final long LAID = 1000; // game time the egg was placed at
+    private static final long DEADLINE = LAID + DragonEggEntity.DEFAULT_HATCH_TIME;
+
+    // what DragonEggEntity#writeAdditional saves
+    private static CompoundNBT save(long deadline)
+    {
+        CompoundNBT compound = new CompoundNBT();
+        compound.putLong(DragonEggEntity.NBT_HATCH_DEADLINE, deadline);
+        return compound;
+    }
+
+    @Test
+    void reloadBeforeDeadline()
+    {
+        long now = LAID + 4000;
+        long deadline = IncubationManager.readHatchDeadline(save(DEADLINE), now);
+
+        assertEquals(DEADLINE, deadline);
+        assertEquals(DragonEggEntity.DEFAULT_HATCH_TIME - 4000, IncubationManager.getTicksLeft(deadline, now));
+
+        // the habitat is checked right away, hatching stays where it was
+        long habitat = IncubationManager.getFirstHabitatCheck(now, true);
+        long wiggle = IncubationManager.rollWiggle(deadline, now, new Random(0));
+        assertEquals(now, IncubationManager.getDue(deadline, habitat, wiggle));
+        assertTrue(wiggle > now);
+    }
+
+    @Test
+    void reloadAfterDeadline()
+    {
+        long now = DEADLINE + 50000; // chunk was unloaded for a long while
+        long deadline = IncubationManager.readHatchDeadline(save(DEADLINE), now);
+
+        assertEquals(0, IncubationManager.getTicksLeft(deadline, now));
+
+        // no wiggles to catch up on, the egg is due to hatch on its first tick back
+        long wiggle = IncubationManager.rollWiggle(deadline, now, new Random(0));
+        assertEquals(deadline, wiggle);
+        long due = IncubationManager.getDue(deadline, IncubationManager.getFirstHabitatCheck(now, true), wiggle);
+        assertTrue(due <= now);
+    }
+
+    @Test
+    void reloadOnDeadline()
+    {
+        assertEquals(0, IncubationManager.getTicksLeft(DEADLINE, DEADLINE));
+        assertEquals(1, IncubationManager.getTicksLeft(DEADLINE, DEADLINE - 1));
+    }
+
+    @Test
+    void timeAddKeepsDeadline()
+    {
+        // /time add and sleeping only move the day time. Game time, which deadlines are in, keeps counting as usual,
+        // so a save/reload around a time skip gives the same ticks left
+        long now = LAID + 100;
+        CompoundNBT saved = save(IncubationManager.readHatchDeadline(save(DEADLINE), now));
+        long deadline = IncubationManager.readHatchDeadline(saved, now);
+
+        assertEquals(DEADLINE, deadline);
+        assertEquals(DragonEggEntity.DEFAULT_HATCH_TIME - 100, IncubationManager.getTicksLeft(deadline, now));
+    }
+
+    @Test
+    void gameTimeSkipWhileLoaded()
+    {
+        // game time jumping ahead (e.g. a server catching up after lag) hatches on the next check, not later
+        long deadline = DEADLINE;
+        long now = LAID + 10;
+        long due = IncubationManager.getDue(deadline, IncubationManager.getFirstHabitatCheck(now, false), IncubationManager.rollWiggle(deadline, now, new Random(0)));
+
+        long skipped = DEADLINE + 200;
+        assertTrue(due <= skipped);
+        assertEquals(0, IncubationManager.getTicksLeft(deadline, skipped));
+    }
+
+    @Test
+    void legacyHatchTime()
+    {
+        CompoundNBT compound = new CompoundNBT();
+        compound.putInt(DragonEggEntity.NBT_HATCH_TIME, 5000);
+
+        long now = 7000;
+        long deadline = IncubationManager.readHatchDeadline(compound, now);
+        assertEquals(12000, deadline);
+        assertEquals(5000, IncubationManager.getTicksLeft(deadline, now));
+    }
+
+    @Test
+    void legacyHatchTimeDone()
+    {
+        CompoundNBT compound = new CompoundNBT();
+        compound.putInt(DragonEggEntity.NBT_HATCH_TIME, 0);
+
+        assertEquals(0, IncubationManager.getTicksLeft(IncubationManager.readHatchDeadline(compound, 7000), 7000));
+    }
+
+    @Test
+    void deadlineOverLegacy()
+    {
+        CompoundNBT compound = save(DEADLINE);
+        compound.putInt(DragonEggEntity.NBT_HATCH_TIME, 5);
+
+        assertEquals(DEADLINE, IncubationManager.readHatchDeadline(compound, 7000));
+    }
+
+    @Test
+    void newEgg()
+    {
+        assertEquals(-1, IncubationManager.readHatchDeadline(new CompoundNBT(), 7000));
+    }
+
+    @Test
+    void wigglesOnlyNearHatching()
+    {
+        Random rand = new Random(0);
+        long start = DEADLINE - (long) DragonEggEntity.EGG_WIGGLE_THRESHOLD;
+
+        assertEquals(start + 1, IncubationManager.rollWiggle(DEADLINE, LAID, rand));
+        for (int i = 0; i < 100; i++)
+        {
+            long now = start + 10 + i;
+            assertTrue(IncubationManager.rollWiggle(DEADLINE, now, rand) > now);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package wolfshotz.dml.entities.ai;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.vector.Vector3d;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import wolfshotz.dml.entities.AetherDragonEntity;
+import wolfshotz.dml.entities.TameableDragonEntity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a recorded flight through the rider's prediction and the server's playback of the rider input channel,
+ * over a connection with latency and jitter, and checks the server never ends up where the rider's client would
+ * have to be corrected.
+ */
+class FlightReplayTest
+{
+    private static final double TOLERANCE = 1.5; // same as FlightPrediction
+    private static final int SETTLE = 60; // ticks of hovering at the end of the recording
+
+    // a flight through every kind of input: straight, turning, climbing, diving, strafing, backing off and hovering
+    private static List<RiderInput> record()
+    {
+        List<RiderInput> inputs = new ArrayList<>();
+        float yaw = 0;
+        for (int t = 0; t < 20; t++) inputs.add(RiderInput.of(0, 0, yaw, 0, false, false));
+        for (int t = 0; t < 40; t++) inputs.add(RiderInput.of(0, 1, yaw, 0, false, false));
+        for (int t = 0; t < 60; t++) inputs.add(RiderInput.of(0, 1, yaw += 3, -10, false, false));
+        for (int t = 0; t < 40; t++) inputs.add(RiderInput.of(0, 1, yaw, 30, false, false));
+        for (int t = 0; t < 30; t++) inputs.add(RiderInput.of(1, 0, yaw, 0, false, false));
+        for (int t = 0; t < 30; t++) inputs.add(RiderInput.of(0, 0, yaw, 0, false, false));
+        for (int t = 0; t < 40; t++) inputs.add(RiderInput.of(0, -1, yaw -= 5, 20, false, false));
+        for (int t = 0; t < 60; t++) inputs.add(RiderInput.of(0, 1, yaw += 1.5f, (float) Math.sin(t / 7d) * 40, false, false));
+        for (int t = 0; t < 30; t++) inputs.add(RiderInput.of(-1, 0, yaw, 0, false, false));
+        for (int t = 0; t < 30; t++) inputs.add(RiderInput.of(0, 1, yaw, -45, false, true));
+        for (int t = 0; t < SETTLE; t++) inputs.add(RiderInput.of(0, 0, yaw, 0, false, false));
+        return inputs;
+    }
+
+    /**
+     * @param latency one way latency in ticks
+     * @param jitter  extra ticks a message may take on top of that, at random
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "1, 0, " + TameableDragonEntity.BASE_SPEED_FLYING,
+            "1, 1, " + TameableDragonEntity.BASE_SPEED_FLYING,
+            "2, 1, " + TameableDragonEntity.BASE_SPEED_FLYING,
+            "2, 2, " + TameableDragonEntity.BASE_SPEED_FLYING,
+            "3, 2, " + TameableDragonEntity.BASE_SPEED_FLYING,
+            "3, 2, " + AetherDragonEntity.AETHER_BASE_SPEED_FLYING,
+            "4, 0, " + AetherDragonEntity.AETHER_BASE_SPEED_FLYING
+    })
+    void converges(int latency, int jitter, double flySpeed)
+    {
+        for (long seed = 0; seed < 8; seed++) replay(record(), latency, jitter, flySpeed, new Random(seed));
+    }
+
+    private static void replay(List<RiderInput> inputs, int latency, int jitter, double flySpeed, Random rand)
+    {
+        Dragon client = new Dragon(flySpeed);
+        Dragon server = new Dragon(flySpeed);
+        FlightPrediction prediction = new FlightPrediction(null);
+        RiderInput.Buffer buffer = new RiderInput.Buffer();
+        Link<RiderInput.Packet> up = new Link<>(latency, jitter, rand);
+        Link<Vector3d> down = new Link<>(latency, jitter, rand);
+        RiderInput last = null;
+        int sequence = 0;
+
+        for (int t = 0; t < inputs.size(); t++)
+        {
+            // the rider's client: steer right away, and send the input if it changed
+            RiderInput input = inputs.get(t);
+            client.tick(input);
+            prediction.record(client.x, client.y, client.z);
+            if (!input.equals(last)) up.send(t, send(new RiderInput.Packet(++sequence, t, input)));
+            last = input;
+
+            // the server: play back what arrived. Until then, it steers with what the vanilla packets said
+            for (RiderInput.Packet packet : up.receive(t)) buffer.receive(packet, t);
+            RiderInput played = buffer.tick();
+            server.tick(played != null? played : inputs.get(Math.max(0, t - latency)));
+            down.send(t, new Vector3d(server.x, server.y, server.z));
+
+            // the rider's client again, getting the server's position
+            int tick = t;
+            for (Vector3d pos : down.receive(t))
+                assertTrue(prediction.accepts(pos.x, pos.y, pos.z), () -> String.format("corrected at tick %s: server at %s, client at %s", tick, pos, client));
+        }
+
+        double dx = client.x - server.x, dy = client.y - server.y, dz = client.z - server.z;
+        assertTrue(Math.sqrt(dx * dx + dy * dy + dz * dz) <= TOLERANCE, () -> String.format("client %s and server %s didn't settle", client, server));
+    }
+
+    // through the wire format, like the channel does
+    private static RiderInput.Packet send(RiderInput.Packet packet)
+    {
+        PacketBuffer buf = new PacketBuffer(Unpooled.buffer());
+        packet.encode(buf);
+        return new RiderInput.Packet(buf);
+    }
+
+    /**
+     * What {@link DragonMoveController#tick} and {@link TameableDragonEntity#travel} do with a ridden flying dragon
+     * every tick, in open air.
+     */
+    private static class Dragon
+    {
+        private final double flySpeed;
+        private double x, y = 100, z;
+        private Vector3d motion = Vector3d.ZERO;
+        private Vector3d target = new Vector3d(x, y, z);
+
+        private Dragon(double flySpeed)
+        {
+            this.flySpeed = flySpeed;
+        }
+
+        private void tick(RiderInput input)
+        {
+            motion = DragonMoveController.getFlightMotion(target.x - x, target.y - y, target.z - z, motion, flySpeed, 0);
+            x += motion.x;
+            y += motion.y;
+            z += motion.z;
+            target = input.getMoveTarget(x, y, z);
+        }
+
+        @Override
+        public String toString() { return String.format("(%.2f, %.2f, %.2f)", x, y, z); }
+    }
+
+    /**
+     * An ordered connection, where everything takes the latency plus some jitter to arrive, but never overtakes what
+     * was sent before it.
+     */
+    private static class Link<T>
+    {
+        private final int latency, jitter;
+        private final Random rand;
+        private final ArrayDeque<Integer> arrivals = new ArrayDeque<>();
+        private final ArrayDeque<T> messages = new ArrayDeque<>();
+        private int lastArrival;
+
+        private Link(int latency, int jitter, Random rand)
+        {
+            this.latency = latency;
+            this.jitter = jitter;
+            this.rand = rand;
+        }
+
+        private void send(int now, T message)
+        {
+            lastArrival = Math.max(lastArrival, now + latency + rand.nextInt(jitter + 1));
+            arrivals.add(lastArrival);
+            messages.add(message);
+        }
+
+        private List<T> receive(int now)
+        {
+            List<T> received = new ArrayList<>();
+            while (!arrivals.isEmpty() && arrivals.peek() <= now)
+            {
+                arrivals.poll();
+                received.add(messages.poll());
+            }
+            return received;
+        }
+    }
+}
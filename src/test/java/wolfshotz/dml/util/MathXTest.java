@@ -0,0 +1,109 @@
+package wolfshotz.dml.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the fast trig approximations stay within the bounds {@link MathX#setFastTrig} documents, over negative
+ * angles, several turns, the axes and the corners of atan2.
+ */
+class MathXTest
+{
+    private static final double SIN_BOUND = 4e-7;
+    private static final double ATAN2_BOUND = 2.5e-6;
+    private static final double TURN = Math.PI * 2;
+
+    @BeforeEach
+    void fastTrig()
+    {
+        MathX.setFastTrig(true);
+    }
+
+    @AfterEach
+    void reset()
+    {
+        MathX.setFastTrig(false);
+    }
+
+    @Test
+    void sinAndCos()
+    {
+        // four turns either way, in steps that don't line up with the table
+        for (double a = -4 * TURN; a <= 4 * TURN; a += 0.000731) checkSinCos((float) a);
+    }
+
+    @Test
+    void sinAndCosOnAxes()
+    {
+        for (int quarter = -16; quarter <= 16; quarter++)
+        {
+            float a = (float) (quarter * Math.PI / 2);
+            checkSinCos(a);
+            checkSinCos(Math.nextUp(a));
+            checkSinCos(Math.nextDown(a));
+        }
+        checkSinCos(-0f);
+    }
+
+    @Test
+    void atan2()
+    {
+        for (float radius : new float[] {1e-3f, 0.5f, 1, 16, 3e4f})
+            for (double a = -Math.PI; a <= Math.PI; a += 0.000613)
+                checkAtan2((float) (Math.sin(a) * radius), (float) (Math.cos(a) * radius));
+    }
+
+    @Test
+    void atan2OnAxes()
+    {
+        for (float v : new float[] {1e-30f, 1, 1e30f})
+        {
+            checkAtan2(0, v);
+            checkAtan2(v, 0);
+            checkAtan2(0, -v);
+            checkAtan2(-v, 0);
+            checkAtan2(-0f, v);
+            checkAtan2(-0f, -v);
+            checkAtan2(v, -0f);
+            checkAtan2(-v, -0f);
+            checkAtan2(v, v);
+            checkAtan2(-v, -v);
+        }
+    }
+
+    @Test
+    void atan2AtOrigin()
+    {
+        // same signed results as Math, not just the same magnitude
+        for (float y : new float[] {0f, -0f})
+            for (float x : new float[] {0f, -0f})
+                assertEquals((float) Math.atan2(y, x), MathX.atan2(y, x), () -> "atan2(" + y + ", " + x + ")");
+    }
+
+    @Test
+    void exactWhenOff()
+    {
+        MathX.setFastTrig(false);
+        for (double a = -TURN; a <= TURN; a += 0.0137)
+        {
+            float f = (float) a;
+            assertEquals((float) Math.sin(f), MathX.sin(f));
+            assertEquals((float) Math.cos(f), MathX.cos(f));
+            assertEquals((float) Math.atan2(f, 0.3f), MathX.atan2(f, 0.3f));
+        }
+    }
+
+    private static void checkSinCos(float a)
+    {
+        assertEquals(Math.sin(a), MathX.sin(a), SIN_BOUND, () -> "sin(" + a + ")");
+        assertEquals(Math.cos(a), MathX.cos(a), SIN_BOUND, () -> "cos(" + a + ")");
+    }
+
+    private static void checkAtan2(float y, float x)
+    {
+        assertEquals(Math.atan2(y, x), MathX.atan2(y, x), ATAN2_BOUND, () -> "atan2(" + y + ", " + x + ")");
+    }
+}